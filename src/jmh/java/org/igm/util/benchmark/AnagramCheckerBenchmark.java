@@ -0,0 +1,90 @@
+package org.igm.util.benchmark;
+
+import org.igm.util.AnagramChecker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link AnagramChecker#isAnagram(String, String)} over pairs of phrases of different lengths. Half of the
+ * pairs are anagrams (the second phrase is a shuffle of the first one) and the other half differ in one letter, so
+ * both the accepting and the rejecting paths are exercised. The reference parameter switches to the list based
+ * algorithm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnagramCheckerBenchmark {
+
+    private static final int PAIRS = 64;
+
+    private static final String ASCII = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789  .,;-";
+    private static final String UNICODE = "aáàäâbcçdeéèëêfghiíìïîjklmnñoóòöôpqrstuúùüûvwxyzÁÉÍÓÚÑÇ ¿?¡!ﬁæœΣσαβγжщ";
+
+    @Param({"16", "256", "4096"})
+    public int phraseLength;
+
+    @Param({"ASCII", "UNICODE"})
+    public String alphabet;
+
+    @Param({"true", "false"})
+    public boolean punctuation;
+
+    @Param({"false", "true"})
+    public boolean referenceAlgorithm;
+
+    private AnagramChecker checker;
+    private String[] ones;
+    private String[] twos;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void createPhrases() {
+        Random random = new Random(phraseLength);
+        String letters = "ASCII".equals(alphabet) ? ASCII : UNICODE;
+
+        checker = AnagramChecker.getInstance()
+                .consideringPunctuation(punctuation)
+                .usingReferenceAlgorithm(referenceAlgorithm);
+        ones = new String[PAIRS];
+        twos = new String[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            char[] phrase = new char[phraseLength];
+            for (int j = 0; j < phraseLength; j++) {
+                phrase[j] = letters.charAt(random.nextInt(letters.length()));
+            }
+            ones[i] = new String(phrase);
+            for (int j = phrase.length - 1; j > 0; j--) {
+                int k = random.nextInt(j + 1);
+                char aux = phrase[j];
+                phrase[j] = phrase[k];
+                phrase[k] = aux;
+            }
+            if (i % 2 == 1) {
+                phrase[random.nextInt(phrase.length)] = '#';
+            }
+            twos[i] = new String(phrase);
+        }
+    }
+
+    @Benchmark
+    public boolean isAnagram() {
+        index = (index + 1) & (PAIRS - 1);
+        return checker.isAnagram(ones[index], twos[index]);
+    }
+}
@@ -0,0 +1,117 @@
+package org.igm.util.benchmark;
+
+import org.igm.util.ConcurrentOptimizedUnsortedList;
+import org.igm.util.OptimizedUnsortedList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the contention of {@link ConcurrentOptimizedUnsortedList} against a
+ * {@link Collections#synchronizedCollection(Collection)} wrapper of {@link OptimizedUnsortedList}, used as a work bag
+ * that every thread adds to and removes from. The number of threads is the JMH one, so the scaling is measured
+ * running the benchmark with -t 1, -t 4, -t 16 and so on.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@Threads(4)
+public class ConcurrentOptimizedUnsortedListBenchmark {
+
+    private static final int PROBES = 1 << 16;
+
+    @Param({"striped", "synchronized"})
+    public String implementation;
+
+    @Param({"100000"})
+    public int size;
+
+    private Collection<Integer> bag;
+    private ConcurrentOptimizedUnsortedList<Integer> striped;
+
+    @State(Scope.Thread)
+    public static class Probes {
+
+        private Integer[] values;
+        private int index;
+
+        @Setup(Level.Trial)
+        public void fill(ConcurrentOptimizedUnsortedListBenchmark benchmark) {
+            Random random = new Random(ThreadLocalRandom.current().nextLong());
+            values = new Integer[PROBES];
+            for (int i = 0; i < PROBES; i++) {
+                values[i] = random.nextInt(benchmark.size);
+            }
+        }
+
+        Integer next() {
+            index = (index + 1) & (PROBES - 1);
+            return values[index];
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void fill() {
+        if ("striped".equals(implementation)) {
+            striped = new ConcurrentOptimizedUnsortedList<>();
+            bag = striped;
+        } else {
+            bag = Collections.synchronizedCollection(new OptimizedUnsortedList<>());
+        }
+        for (int i = 0; i < size; i++) {
+            bag.add(i);
+        }
+    }
+
+    /*
+     * Removes an existing value and inserts it back, so the size of the bag doesn't drift along the measurement
+     */
+    @Benchmark
+    public boolean removeAndAdd(Probes probes) {
+        Integer value = probes.next();
+        bag.remove(value);
+        return bag.add(value);
+    }
+
+    @Benchmark
+    public boolean contains(Probes probes) {
+        return bag.contains(probes.next());
+    }
+
+    /*
+     * Takes any element and gives it back. The synchronized wrapper has no such operation, so it takes the first
+     * element of its iterator, which is what the callers do today
+     */
+    @Benchmark
+    public boolean pollAnyAndAdd() {
+        Integer value;
+        if (striped != null) {
+            value = striped.pollAny();
+        } else {
+            synchronized (bag) {
+                value = bag.iterator().next();
+                bag.remove(value);
+            }
+        }
+        return bag.add(value);
+    }
+}
@@ -0,0 +1,65 @@
+package org.igm.util.benchmark;
+
+import org.igm.util.NumberToSpanishWords;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link NumberToSpanishWords#convert(String)} for numbers whose integer part has from one to twenty one
+ * digits (the largest magnitude accepted), with and without a decimal part.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NumberToSpanishWordsBenchmark {
+
+    private static final int NUMBERS = 256;
+
+    @Param({"1", "3", "6", "9", "12", "15", "18", "21"})
+    public int digits;
+
+    @Param({"true", "false"})
+    public boolean decimals;
+
+    private String[] numbers;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void createNumbers() {
+        Random random = new Random(digits);
+        numbers = new String[NUMBERS];
+        for (int i = 0; i < NUMBERS; i++) {
+            StringBuilder number = new StringBuilder();
+            number.append((char) ('1' + random.nextInt(9)));
+            for (int j = 1; j < digits; j++) {
+                number.append((char) ('0' + random.nextInt(10)));
+            }
+            if (decimals) {
+                number.append('.').append(random.nextInt(10)).append(random.nextInt(10));
+            }
+            numbers[i] = number.toString();
+        }
+    }
+
+    @Benchmark
+    public String convert() {
+        index = (index + 1) & (NUMBERS - 1);
+        return NumberToSpanishWords.convert(numbers[index]);
+    }
+}
@@ -0,0 +1,89 @@
+package org.igm.util.benchmark;
+
+import org.igm.util.OptimizedUnsortedList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the single element operations of {@link OptimizedUnsortedList} over lists from one thousand to ten
+ * million elements. The duplicate ratio is the fraction of the elements that repeat an already inserted value, so
+ * 0.0 means that every element is distinct and 0.9 means that there are size / 10 distinct values.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class OptimizedUnsortedListBenchmark {
+
+    private static final int PROBES = 1 << 16;
+
+    @Param({"1000", "100000", "10000000"})
+    public int size;
+
+    @Param({"0.0", "0.5", "0.9"})
+    public double duplicateRatio;
+
+    private OptimizedUnsortedList<Integer> list;
+    private Integer[] present;
+    private Integer[] absent;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        Random random = new Random(size);
+        int distinct = Math.max(1, (int) (size * (1.0 - duplicateRatio)));
+
+        list = new OptimizedUnsortedList<>();
+        for (int i = 0; i < size; i++) {
+            list.add(i < distinct ? i : random.nextInt(distinct));
+        }
+
+        present = new Integer[PROBES];
+        absent = new Integer[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            present[i] = random.nextInt(distinct);
+            absent[i] = distinct + random.nextInt(Integer.MAX_VALUE - distinct);
+        }
+    }
+
+    private int next() {
+        index = (index + 1) & (PROBES - 1);
+        return index;
+    }
+
+    @Benchmark
+    public boolean containsPresent() {
+        return list.contains(present[next()]);
+    }
+
+    @Benchmark
+    public boolean containsAbsent() {
+        return list.contains(absent[next()]);
+    }
+
+    /*
+     * Removes an existing value and inserts it back, so the size and the duplicate ratio of the list do not drift
+     * along the measurement
+     */
+    @Benchmark
+    public boolean removeAndAdd() {
+        Integer value = present[next()];
+        list.remove(value);
+        return list.add(value);
+    }
+}
@@ -1,21 +1,61 @@
 package org.igm.util;
 
 import java.text.Normalizer;
+import java.util.Arrays;
 
+/**
+ * This class checks if two phrases are anagrams. The instances are immutable: the configuration methods return the
+ * instance with the requested configuration instead of modifying the current one, and there is a single cached
+ * instance per configuration. That way a checker can be shared by any number of threads without locking.
+ */
 public class AnagramChecker {
 
-    private static boolean isPunctuationConsidered = true;
-    private AnagramChecker() {
+    // One instance per configuration, see instance(boolean, boolean)
+    private static final AnagramChecker[] INSTANCES = {
+            new AnagramChecker(false, false), new AnagramChecker(true, false),
+            new AnagramChecker(false, true), new AnagramChecker(true, true)};
+
+    private final boolean isPunctuationConsidered;
+    private final boolean isReferenceAlgorithmUsed;
+
+    private AnagramChecker(boolean isPunctuationConsidered, boolean isReferenceAlgorithmUsed) {
+        this.isPunctuationConsidered = isPunctuationConsidered;
+        this.isReferenceAlgorithmUsed = isReferenceAlgorithmUsed;
     }
+
+    /**
+     * @return the checker that considers the punctuation and uses the counting algorithm
+     */
     public static AnagramChecker getInstance() {
-        return new AnagramChecker();
+        return instance(true, false);
     }
 
+    /**
+     * Chooses if the characters that aren't letters or digits are compared or ignored. By default they are compared
+     *
+     * @param considerPunctuation false to ignore everything but letters and digits
+     * @return the checker with the requested configuration
+     */
     public AnagramChecker consideringPunctuation(boolean considerPunctuation) {
-        this.isPunctuationConsidered = considerPunctuation;
-        return this;
+        return instance(considerPunctuation, isReferenceAlgorithmUsed);
     }
 
+    /**
+     * Chooses the algorithm used to compare the normalized phrases. By default the frequency of every character is
+     * counted in reusable primitive arrays, which doesn't allocate. The reference algorithm fills a
+     * {@link CharOptimizedUnsortedList} with the characters of the first phrase and removes the ones of the second;
+     * both return exactly the same results
+     *
+     * @param useReferenceAlgorithm true to compare using the list based algorithm
+     * @return the checker with the requested configuration
+     */
+    public AnagramChecker usingReferenceAlgorithm(boolean useReferenceAlgorithm) {
+        return instance(isPunctuationConsidered, useReferenceAlgorithm);
+    }
+
+    private static AnagramChecker instance(boolean considerPunctuation, boolean useReferenceAlgorithm) {
+        return INSTANCES[(considerPunctuation ? 1 : 0) | (useReferenceAlgorithm ? 2 : 0)];
+    }
 
     /**
      * This algorithm compares if two strings are anagrams ignoring the spaces and
@@ -30,11 +70,17 @@ public class AnagramChecker {
      * @return true if both strings are anagrams
      */
     public boolean isAnagram(String one, String two) {
-        /*
-          The idea  behind this algorithm is to fill a list with the letters of the first phrase and
-          remove one to one the letters of the second phrase. If, reached the end, the list contains
-          letters, it means that the considered strings aren't anagrams
-       */
+        if (!isReferenceAlgorithmUsed) {
+            //The phrases are folded straight into the counter, without building the normalized strings
+            CharFrequencyCounter counter = CharFrequencyCounter.forCurrentThread();
+            if (CharFoldTable.count(one, isPunctuationConsidered, counter, 1)
+                    && CharFoldTable.count(two, isPunctuationConsidered, counter, -1)) {
+                boolean balanced = counter.isBalanced();
+                counter.reset();
+                return balanced;
+            }
+            counter.reset();
+        }
 
         //Normalizing the strings, to lowercase, remove spaces and remove accents
         one = normalize(one);
@@ -45,9 +91,35 @@ public class AnagramChecker {
             return false;
         }
 
+        if (isReferenceAlgorithmUsed) {
+            return isAnagramByList(one, two);
+        }
+        return CharFrequencyCounter.forCurrentThread().isPermutation(one, two);
+    }
+
+    /**
+     * This method computes the canonical signature of a phrase: its normalized characters sorted. Two phrases are
+     * anagrams, following the same rules than {@link #isAnagram(String, String)}, if and only if their signatures
+     * are equal, so the signature can be used as a key to group phrases, see {@link AnagramGrouper}
+     *
+     * @param phrase the phrase
+     * @return the sorted normalized characters of the phrase
+     */
+    public String signature(String phrase) {
+        char[] chars = normalize(phrase).toCharArray();
+        Arrays.sort(chars);
+        return new String(chars);
+    }
+
+    private boolean isAnagramByList(String one, String two) {
+        /*
+          The idea  behind this algorithm is to fill a list with the letters of the first phrase and
+          remove one to one the letters of the second phrase. If, reached the end, the list contains
+          letters, it means that the considered strings aren't anagrams
+       */
         char[] oneChar = one.toCharArray();
         char[] twoChar = two.toCharArray();
-        OptimizedUnsortedList<Character> listOne = new OptimizedUnsortedList<>();
+        CharOptimizedUnsortedList listOne = new CharOptimizedUnsortedList();
         /*
          I fill a list and a map in order to fill and delete with cost O(1) as
          the map can access the element with o(1) and so does the list if you
@@ -73,12 +145,30 @@ public class AnagramChecker {
 
 
     /**
-     * This method removes spaces, transforms to lowercase and removes
+     * This method removes spaces, transforms to lowercase and removes the accents, and the punctuation if it
+     * isn't considered. The chars are folded in a single pass through {@link CharFoldTable}, only the phrases
+     * that the table can't fold alone go through {@link #normalizeWithNormalizer(String, boolean)}
+     *
+     * @param original
+     * @return
+     */
+    String normalize(String original) {
+        StringBuilder folded = new StringBuilder(original.length());
+        if (CharFoldTable.fold(original, isPunctuationConsidered, folded)) {
+            return folded.toString();
+        }
+        return normalizeWithNormalizer(original, isPunctuationConsidered);
+    }
+
+    /**
+     * This method removes spaces, transforms to lowercase and removes the accents using the {@link Normalizer}. It
+     * is the slow path of the normalization and the reference the fold table is checked against
      *
      * @param original
+     * @param punctuationConsidered
      * @return
      */
-    private String normalize(String original) {
+    static String normalizeWithNormalizer(String original, boolean punctuationConsidered) {
         String ret = original.replace(" ", "");
         /*
          For practical reasons i've decided to consider special characters
@@ -89,7 +179,7 @@ public class AnagramChecker {
 
         ret = Normalizer.normalize(ret, Normalizer.Form.NFKD); //When normalizing, the accents are separated from letters
         ret = ret.replaceAll("\\p{InCombiningDiacriticalMarks}+", "");
-        if(!isPunctuationConsidered) {
+        if(!punctuationConsidered) {
             ret = ret.replaceAll("[^a-zA-Z0-9]", "");
         }
 
@@ -0,0 +1,210 @@
+package org.igm.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * This class groups phrases into anagram families. Instead of comparing every pair of phrases, which costs O(n²)
+ * calls to {@link AnagramChecker#isAnagram(String, String)}, every phrase is visited once to compute its
+ * {@link AnagramChecker#signature(String) signature}, and the phrases with the same signature are grouped
+ * together. The normalization and punctuation rules are the ones of the checker given on creation.
+ * <p>
+ * The groups are returned keyed by signature and every group keeps the phrases in encounter order. There are
+ * three flavours:
+ * <ul>
+ *     <li>{@link #group(Iterable)} groups sequentially in memory.</li>
+ *     <li>{@link #group(Stream)} groups in memory and runs in the fork-join pool when the stream is parallel.</li>
+ *     <li>{@link #group(Iterable, Path, int, BiConsumer)} keeps at most a given number of phrases in memory and
+ *     spills the partial groups to disk, for corpora that don't fit in the heap.</li>
+ * </ul>
+ */
+public class AnagramGrouper {
+
+    private static final int DEFAULT_PARTITIONS = 64;
+
+    private final AnagramChecker checker;
+    private final int partitions;
+
+    public AnagramGrouper(AnagramChecker checker) {
+        this(checker, DEFAULT_PARTITIONS);
+    }
+
+    /**
+     * @param checker    the checker whose rules are used to compute the signatures
+     * @param partitions the number of files the spilled groups are distributed in. When spilling, every partition
+     *                   is loaded in memory at once, so it should be about the corpus size divided by the phrases
+     *                   that fit in memory
+     */
+    public AnagramGrouper(AnagramChecker checker, int partitions) {
+        if (partitions <= 0) {
+            throw new IllegalArgumentException("the number of partitions must be positive");
+        }
+        this.checker = checker;
+        this.partitions = partitions;
+    }
+
+    /**
+     * Groups the phrases into anagram families in a single pass
+     *
+     * @param phrases the phrases to group
+     * @return the families keyed by signature, in order of first appearance
+     */
+    public Map<String, List<String>> group(Iterable<String> phrases) {
+        Map<String, List<String>> groups = new LinkedHashMap<>();
+        for (String phrase : phrases) {
+            groups.computeIfAbsent(checker.signature(phrase), key -> new ArrayList<>()).add(phrase);
+        }
+        return groups;
+    }
+
+    /**
+     * Groups the phrases into anagram families in a single pass. If the stream is parallel, the signatures are
+     * computed and the partial groups merged in the fork-join pool the stream runs in
+     *
+     * @param phrases the phrases to group
+     * @return the families keyed by signature
+     */
+    public Map<String, List<String>> group(Stream<String> phrases) {
+        return phrases.collect(Collectors.groupingBy(checker::signature, LinkedHashMap::new, Collectors.toList()));
+    }
+
+    /**
+     * Groups the phrases into anagram families keeping at most maxPhrasesInMemory phrases in memory. When the
+     * limit is reached, the partial groups are appended to partition files under workDirectory, distributed by
+     * signature. Once all the phrases have been read, every partition is grouped in memory and its families are
+     * handed to the consumer. The phrases of a family keep their encounter order but the families are handed in no
+     * particular order. The partition files are deleted before returning
+     *
+     * @param phrases            the phrases to group
+     * @param workDirectory      the directory where the partition files are created
+     * @param maxPhrasesInMemory the number of phrases that triggers a spill
+     * @param consumer           receives the signature and the phrases of every family
+     * @throws IOException if the partition files can't be written or read
+     */
+    public void group(Iterable<String> phrases, Path workDirectory, int maxPhrasesInMemory,
+                      BiConsumer<String, List<String>> consumer) throws IOException {
+        if (maxPhrasesInMemory <= 0) {
+            throw new IllegalArgumentException("the number of phrases in memory must be positive");
+        }
+        Map<String, List<String>> groups = new LinkedHashMap<>();
+        int phrasesInMemory = 0;
+        Path spillDirectory = null;
+
+        try {
+            for (String phrase : phrases) {
+                groups.computeIfAbsent(checker.signature(phrase), key -> new ArrayList<>()).add(phrase);
+                phrasesInMemory++;
+                if (phrasesInMemory >= maxPhrasesInMemory) {
+                    if (spillDirectory == null) {
+                        spillDirectory = Files.createTempDirectory(workDirectory, "anagrams");
+                    }
+                    spill(groups, spillDirectory);
+                    groups.clear();
+                    phrasesInMemory = 0;
+                }
+            }
+
+            if (spillDirectory == null) {
+                groups.forEach(consumer);
+                return;
+            }
+            spill(groups, spillDirectory);
+            groups.clear();
+            for (int partition = 0; partition < partitions; partition++) {
+                Path file = partitionFile(spillDirectory, partition);
+                if (Files.exists(file)) {
+                    readPartition(file).forEach(consumer);
+                }
+            }
+        } finally {
+            if (spillDirectory != null) {
+                for (int partition = 0; partition < partitions; partition++) {
+                    Files.deleteIfExists(partitionFile(spillDirectory, partition));
+                }
+                Files.deleteIfExists(spillDirectory);
+            }
+        }
+    }
+
+    /*
+     * Appends every partial group to its partition file: the signature, the number of phrases and the phrases
+     */
+    private void spill(Map<String, List<String>> groups, Path spillDirectory) throws IOException {
+        DataOutputStream[] outputs = new DataOutputStream[partitions];
+        try {
+            for (Map.Entry<String, List<String>> group : groups.entrySet()) {
+                int partition = Math.floorMod(group.getKey().hashCode(), partitions);
+                if (outputs[partition] == null) {
+                    outputs[partition] = new DataOutputStream(new BufferedOutputStream(
+                            Files.newOutputStream(partitionFile(spillDirectory, partition),
+                                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+                }
+                writeString(outputs[partition], group.getKey());
+                outputs[partition].writeInt(group.getValue().size());
+                for (String phrase : group.getValue()) {
+                    writeString(outputs[partition], phrase);
+                }
+            }
+        } finally {
+            for (DataOutputStream output : outputs) {
+                if (output != null) {
+                    output.close();
+                }
+            }
+        }
+    }
+
+    private Map<String, List<String>> readPartition(Path file) throws IOException {
+        Map<String, List<String>> groups = new LinkedHashMap<>();
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (true) {
+                String signature;
+                try {
+                    signature = readString(input);
+                } catch (EOFException e) {
+                    return groups;
+                }
+                int size = input.readInt();
+                List<String> group = groups.computeIfAbsent(signature, key -> new ArrayList<>(size));
+                for (int i = 0; i < size; i++) {
+                    group.add(readString(input));
+                }
+            }
+        }
+    }
+
+    private static Path partitionFile(Path spillDirectory, int partition) {
+        return spillDirectory.resolve("partition-" + partition);
+    }
+
+    /*
+     * writeUTF can't hold more than 64KB, so the strings are written as their length followed by their chars
+     */
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        output.writeInt(value.length());
+        output.writeChars(value);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = input.readChar();
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,81 @@
+package org.igm.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+
+/**
+ * This class holds the result of converting many numbers at once with
+ * {@link NumberToSpanishWords#convertAll(CharSequence[])}: the words of every number that was
+ * accepted and the error of every number that wasn't, both by the position of the number in the
+ * input, so a bad row doesn't prevent the rest from being converted.
+ */
+public final class BulkConversionResult {
+
+  private final String[] words;
+  private final SortedMap<Integer, NumberFormatException> errors;
+
+  BulkConversionResult(final String[] words,
+      final SortedMap<Integer, NumberFormatException> errors) {
+    this.words = words;
+    this.errors = Collections.unmodifiableSortedMap(errors);
+  }
+
+  /**
+   * @return the number of converted numbers, accepted or not
+   */
+  public int size() {
+    return words.length;
+  }
+
+  /**
+   * @param index the position of the number in the input
+   * @return true if the number was accepted and converted
+   */
+  public boolean isConverted(final int index) {
+    return words[index] != null;
+  }
+
+  /**
+   * @param index the position of the number in the input
+   * @return the words of the number, or null if it wasn't accepted
+   */
+  public String get(final int index) {
+    return words[index];
+  }
+
+  /**
+   * @param index the position of the number in the input
+   * @return the reason why the number wasn't accepted, or null if it was converted
+   */
+  public NumberFormatException getError(final int index) {
+    return errors.get(index);
+  }
+
+  /**
+   * @return true if any number wasn't accepted
+   */
+  public boolean hasErrors() {
+    return !errors.isEmpty();
+  }
+
+  /**
+   * @return the errors keyed by the position of the number in the input, in ascending order
+   */
+  public SortedMap<Integer, NumberFormatException> getErrors() {
+    return errors;
+  }
+
+  /**
+   * @return a read only view of the words in input order, with null for the numbers not accepted
+   */
+  public List<String> asList() {
+    return Collections.unmodifiableList(Arrays.asList(words));
+  }
+
+  // the array itself, for the conversions that can't fail
+  String[] getWords() {
+    return words;
+  }
+}
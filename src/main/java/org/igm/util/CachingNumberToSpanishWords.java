@@ -0,0 +1,205 @@
+package org.igm.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class keeps the words of the most recently converted numbers, so converting again a number
+ * that is already in the cache doesn't build its words. It's meant for inputs where a few values
+ * are converted over and over, like the amounts of the invoices.
+ * <p>
+ * The numbers are cached by their normalized form, so "10", "010" and "10.00" are the same entry:
+ * the leading zeros of the integer part are removed, only the two decimal digits that are
+ * converted are kept, and the sign of zero is dropped. The numbers that aren't accepted are never
+ * cached.
+ * <p>
+ * The cache is split in stripes by the hash of the key, every stripe being a least recently used
+ * map guarded by its own lock, so it can be shared by many threads. A maximum size of zero disables
+ * the cache and every call is delegated to {@link NumberToSpanishWords#convert(String)}.
+ */
+public final class CachingNumberToSpanishWords {
+
+  private static final int MAX_STRIPES = 16;
+  // the stripes only pay off once each one holds a reasonable number of entries
+  private static final int MIN_ENTRIES_PER_STRIPE = 64;
+
+  private final int maximumSize;
+  private final Stripe[] stripes;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * @param maximumSize the number of entries the cache holds at most, zero to disable it
+   */
+  public CachingNumberToSpanishWords(final int maximumSize) {
+    if (maximumSize < 0) {
+      throw new IllegalArgumentException("the maximum size cannot be negative");
+    }
+    this.maximumSize = maximumSize;
+    int stripeCount = 1;
+    while (stripeCount < MAX_STRIPES
+        && maximumSize / (stripeCount * 2) >= MIN_ENTRIES_PER_STRIPE) {
+      stripeCount *= 2;
+    }
+    stripes = new Stripe[maximumSize == 0 ? 0 : stripeCount];
+    for (int i = 0; i < stripes.length; i++) {
+      // the last stripes take the remainder, so the capacities add up to the maximum size
+      stripes[i] = new Stripe(maximumSize / stripeCount
+          + (i >= stripeCount - maximumSize % stripeCount ? 1 : 0));
+    }
+  }
+
+  /**
+   * This method gives the same result than {@link NumberToSpanishWords#convert(String)}, taking
+   * it from the cache when the number was converted recently
+   *
+   * @param _number the number to be parsed
+   * @return the number parsed as words
+   */
+  public String convert(final String _number) {
+    if (stripes.length == 0) {
+      return NumberToSpanishWords.convert(_number);
+    }
+    final String key = normalize(_number);
+    if (key == null) {
+      // not accepted, so the conversion throws the usual exception
+      return NumberToSpanishWords.convert(_number);
+    }
+
+    final Stripe stripe = stripes[(key.hashCode() & 0x7FFFFFFF) % stripes.length];
+    String words;
+    synchronized (stripe) {
+      words = stripe.get(key);
+    }
+    if (words != null) {
+      hits.increment();
+      return words;
+    }
+
+    misses.increment();
+    words = NumberToSpanishWords.convert(key);
+    synchronized (stripe) {
+      stripe.put(key, words);
+    }
+    return words;
+  }
+
+  /**
+   * @return the number of conversions taken from the cache
+   */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * @return the number of conversions of accepted numbers that weren't in the cache
+   */
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /**
+   * @return the number of entries removed to make room for new ones
+   */
+  public long getEvictionCount() {
+    return evictions.sum();
+  }
+
+  /**
+   * @return the fraction of the conversions taken from the cache, zero if nothing was converted
+   */
+  public double getHitRate() {
+    final long hitCount = hits.sum();
+    final long total = hitCount + misses.sum();
+    return total == 0 ? 0.0 : (double) hitCount / total;
+  }
+
+  /**
+   * @return the number of entries held right now
+   */
+  public int size() {
+    int size = 0;
+    for (Stripe stripe : stripes) {
+      synchronized (stripe) {
+        size += stripe.size();
+      }
+    }
+    return size;
+  }
+
+  /**
+   * @return the number of entries the cache holds at most, zero if it's disabled
+   */
+  public int getMaximumSize() {
+    return maximumSize;
+  }
+
+  /**
+   * Removes every entry. The counters are kept
+   */
+  public void clear() {
+    for (Stripe stripe : stripes) {
+      synchronized (stripe) {
+        stripe.clear();
+      }
+    }
+  }
+
+  /*
+   * Returns the normalized form of the number, or null if it isn't accepted. The normalized form
+   * converts to the same words than the number: [-]digits without leading zeros, followed by the
+   * two decimal digits that are converted unless they are both zero
+   */
+  static String normalize(final CharSequence _number) {
+    final NumberValidation validation = new NumberValidation().validate(_number);
+    if (!validation.isValid()) {
+      return null;
+    }
+    final int integerEnd = validation.getIntegerEnd();
+    int firstSignificant = validation.getIntegerStart();
+    while (firstSignificant < integerEnd - 1 && _number.charAt(firstSignificant) == '0') {
+      firstSignificant++;
+    }
+    final int fractionStart = validation.getFractionStart();
+    final int fractionLength = validation.getFractionEnd() - fractionStart;
+    final char tens = fractionLength > 0 ? _number.charAt(fractionStart) : '0';
+    final char units = fractionLength > 1 ? _number.charAt(fractionStart + 1) : '0';
+    final boolean isZero = _number.charAt(firstSignificant) == '0';
+
+    final StringBuilder key = new StringBuilder(integerEnd - firstSignificant + 4);
+    if (validation.isNegative() && !isZero) {
+      key.append('-');
+    }
+    key.append(_number, firstSignificant, integerEnd);
+    if (tens != '0' || units != '0') {
+      key.append(NumberToSpanishWords.DECIMAL_SEPARATOR).append(tens).append(units);
+    }
+    return key.toString();
+  }
+
+  /*
+   * A least recently used map, guarded by the lock of the stripe itself
+   */
+  private final class Stripe extends LinkedHashMap<String, String> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int capacity;
+
+    private Stripe(final int capacity) {
+      super(16, 0.75f, true);
+      this.capacity = capacity;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(final Map.Entry<String, String> eldest) {
+      if (size() > capacity) {
+        evictions.increment();
+        return true;
+      }
+      return false;
+    }
+  }
+}
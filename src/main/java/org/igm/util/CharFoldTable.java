@@ -0,0 +1,152 @@
+package org.igm.util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * This class precomputes, for every char of the BMP, what {@link AnagramChecker} normalization does with it: the
+ * spaces are skipped, the char is decomposed with NFKD, the combining diacritical marks are removed, the char is
+ * removed too if it isn't an ASCII letter or digit and punctuation isn't considered, and finally it is lowercased.
+ * That way a phrase is normalized in a single pass, reading one entry per char, instead of running the
+ * {@link Normalizer}, two regular expressions and the lowercasing over the whole string.
+ * <p>
+ * Some chars can't be folded alone because the result depends on the chars around them: the ones that decompose
+ * into several chars (ligatures, Hangul syllables...), the combining marks that NFKD may reorder, the surrogates,
+ * and the capital sigma, whose lowercase depends on being at the end of a word. When a phrase contains any of
+ * them, or the default locale lowercases with its own rules (Turkish, Azeri and Lithuanian), the caller must use
+ * the slow path, which gives exactly the same result.
+ */
+final class CharFoldTable {
+
+    // The char disappears whatever the configuration is
+    static final byte SKIP = 0;
+    // The char is folded to an ASCII letter or digit, kept whatever the configuration is
+    static final byte ALPHANUMERIC = 1;
+    // The char is kept only when the punctuation is considered
+    static final byte PUNCTUATION = 2;
+    // The char must be normalized together with the rest of the phrase
+    static final byte SLOW = 3;
+
+    private static final char CAPITAL_SIGMA = '\u03A3';
+    private static final char FIRST_COMBINING_MARK = '\u0300';
+    private static final char LAST_COMBINING_MARK = '\u036F';
+
+    private static final char[] FOLDED = new char[Character.MAX_VALUE + 1];
+    private static final byte[] KINDS = new byte[Character.MAX_VALUE + 1];
+
+    static {
+        for (int c = Character.MIN_VALUE; c <= Character.MAX_VALUE; c++) {
+            computeEntry((char) c);
+        }
+    }
+
+    private CharFoldTable() {
+    }
+
+    /**
+     * Appends the normalized form of the phrase to the builder
+     *
+     * @param original              the phrase to normalize
+     * @param punctuationConsidered false to remove everything but ASCII letters and digits
+     * @param out                   the builder that receives the folded chars
+     * @return false if the phrase needs the slow path, in which case the builder contents are undefined
+     */
+    static boolean fold(CharSequence original, boolean punctuationConsidered, StringBuilder out) {
+        if (!isDefaultLocaleSupported()) {
+            return false;
+        }
+        for (int i = 0; i < original.length(); i++) {
+            char c = original.charAt(i);
+            byte kind = KINDS[c];
+            if (kind == ALPHANUMERIC || (kind == PUNCTUATION && punctuationConsidered)) {
+                out.append(FOLDED[c]);
+            } else if (kind == SLOW) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds delta to the count of every char of the normalized form of the phrase, without building it
+     *
+     * @param original              the phrase to normalize
+     * @param punctuationConsidered false to remove everything but ASCII letters and digits
+     * @param counter               the counter that receives the folded chars
+     * @param delta                 the amount to add per char
+     * @return false if the phrase needs the slow path, in which case the counter contents are undefined
+     */
+    static boolean count(CharSequence original, boolean punctuationConsidered, CharFrequencyCounter counter,
+                         int delta) {
+        if (!isDefaultLocaleSupported()) {
+            return false;
+        }
+        for (int i = 0; i < original.length(); i++) {
+            char c = original.charAt(i);
+            byte kind = KINDS[c];
+            if (kind == ALPHANUMERIC || (kind == PUNCTUATION && punctuationConsidered)) {
+                counter.add(FOLDED[c], delta);
+            } else if (kind == SLOW) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * The table is lowercased with the root locale, which only differs from the rest for the languages that
+     * String.toLowerCase treats on its own
+     */
+    private static boolean isDefaultLocaleSupported() {
+        String language = Locale.getDefault().getLanguage();
+        return !"tr".equals(language) && !"az".equals(language) && !"lt".equals(language);
+    }
+
+    private static void computeEntry(char c) {
+        if (c == ' ') {
+            KINDS[c] = SKIP;
+            return;
+        }
+        if (Character.isSurrogate(c) || c == CAPITAL_SIGMA || isMark(c) && !isCombiningDiacriticalMark(c)) {
+            KINDS[c] = SLOW;
+            return;
+        }
+
+        String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFKD);
+        StringBuilder stripped = new StringBuilder();
+        for (int i = 0; i < decomposed.length(); i++) {
+            if (!isCombiningDiacriticalMark(decomposed.charAt(i))) {
+                stripped.append(decomposed.charAt(i));
+            }
+        }
+
+        if (stripped.length() == 0) {
+            KINDS[c] = SKIP;
+            return;
+        }
+        char base = stripped.charAt(0);
+        String lower = stripped.toString().toLowerCase(Locale.ROOT);
+        if (stripped.length() > 1 || lower.length() != 1 || base == CAPITAL_SIGMA || isMark(base)
+                || Character.isSurrogate(base)) {
+            KINDS[c] = SLOW;
+            return;
+        }
+
+        KINDS[c] = isAsciiAlphanumeric(base) ? ALPHANUMERIC : PUNCTUATION;
+        FOLDED[c] = lower.charAt(0);
+    }
+
+    private static boolean isCombiningDiacriticalMark(char c) {
+        return c >= FIRST_COMBINING_MARK && c <= LAST_COMBINING_MARK;
+    }
+
+    private static boolean isMark(char c) {
+        int type = Character.getType(c);
+        return type == Character.NON_SPACING_MARK || type == Character.ENCLOSING_MARK
+                || type == Character.COMBINING_SPACING_MARK;
+    }
+
+    private static boolean isAsciiAlphanumeric(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+}
@@ -0,0 +1,161 @@
+package org.igm.util;
+
+import java.util.Arrays;
+
+/**
+ * This class counts how many times each char appears using primitive arrays only, so comparing two phrases does
+ * not allocate anything once the counter has warmed up. The chars of the Latin range, which are the vast majority
+ * after normalizing, are counted in a dense array indexed by the char itself, and any other char is counted in an
+ * open addressed int map with linear probing.
+ * <p>
+ * The counter keeps how many chars have a count different from zero, so after adding the first phrase and
+ * subtracting the second one, both were permutations of each other if and only if that number is zero.
+ * <p>
+ * The instances are not thread safe, {@link #forCurrentThread()} returns the one owned by the calling thread.
+ */
+final class CharFrequencyCounter {
+
+    // Basic Latin, Latin-1 Supplement and Latin Extended-A and B
+    static final int DENSE_LIMIT = 0x250;
+
+    private static final int EMPTY = -1;
+    private static final int INITIAL_MAP_CAPACITY = 16;
+    private static final int MAX_RETAINED_KEYS = 256;
+
+    private static final ThreadLocal<CharFrequencyCounter> COUNTERS =
+            ThreadLocal.withInitial(CharFrequencyCounter::new);
+
+    private final int[] dense = new int[DENSE_LIMIT];
+    private int[] keys = newKeys(INITIAL_MAP_CAPACITY);
+    private int[] counts = new int[INITIAL_MAP_CAPACITY];
+    private int mapSize;
+    private int nonZero;
+
+    static CharFrequencyCounter forCurrentThread() {
+        return COUNTERS.get();
+    }
+
+    /**
+     * Compares the frequency of every char of both sequences. The counter is left empty afterwards.
+     *
+     * @param one the first sequence
+     * @param two the second sequence
+     * @return true if both sequences contain the same chars the same number of times
+     */
+    boolean isPermutation(CharSequence one, CharSequence two) {
+        if (one.length() != two.length()) {
+            return false;
+        }
+        for (int i = 0; i < one.length(); i++) {
+            add(one.charAt(i), 1);
+        }
+        for (int i = 0; i < two.length(); i++) {
+            add(two.charAt(i), -1);
+        }
+        boolean balanced = isBalanced();
+        reset();
+        return balanced;
+    }
+
+    /**
+     * Adds delta to the count of the given char
+     *
+     * @param c     the char to count
+     * @param delta the amount to add, negative to subtract
+     */
+    void add(char c, int delta) {
+        if (c < DENSE_LIMIT) {
+            int before = dense[c];
+            dense[c] = before + delta;
+            track(before, before + delta);
+        } else {
+            int slot = slotOf(c);
+            int before = counts[slot];
+            counts[slot] = before + delta;
+            track(before, before + delta);
+        }
+    }
+
+    /**
+     * @return true if every counted char has a count of zero
+     */
+    boolean isBalanced() {
+        return nonZero == 0;
+    }
+
+    /**
+     * Sets every count back to zero. When the counter is balanced every count is already zero, so only the keys of
+     * the map are dropped, and only if they have grown beyond {@link #MAX_RETAINED_KEYS}
+     */
+    void reset() {
+        if (nonZero != 0) {
+            Arrays.fill(dense, 0);
+            Arrays.fill(counts, 0);
+            nonZero = 0;
+        }
+        if (mapSize > MAX_RETAINED_KEYS) {
+            keys = newKeys(INITIAL_MAP_CAPACITY);
+            counts = new int[INITIAL_MAP_CAPACITY];
+            mapSize = 0;
+        }
+    }
+
+    private void track(int before, int after) {
+        if (before == 0) {
+            nonZero++;
+        } else if (after == 0) {
+            nonZero--;
+        }
+    }
+
+    /*
+     * Returns the slot of the given char, inserting it with a count of zero if it wasn't present. Entries are never
+     * removed one by one, so the probing never finds holes
+     */
+    private int slotOf(char c) {
+        int mask = keys.length - 1;
+        int slot = hash(c) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == c) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if ((mapSize + 1) * 2 > keys.length) {
+            grow();
+            return slotOf(c);
+        }
+        keys[slot] = c;
+        mapSize++;
+        return slot;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = newKeys(oldKeys.length * 2);
+        counts = new int[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private static int hash(int c) {
+        int h = c * 0x9E3779B1;
+        return h ^ (h >>> 16);
+    }
+
+    private static int[] newKeys(int capacity) {
+        int[] keys = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        return keys;
+    }
+}
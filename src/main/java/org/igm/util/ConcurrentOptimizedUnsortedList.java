@@ -0,0 +1,251 @@
+package org.igm.util;
+
+import java.util.AbstractCollection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This class is the thread safe version of {@link OptimizedUnsortedList}: insertion cost O(1), O(1) on delete and
+ * O(1) on contains, it does not mantain order and allows duplicated elements. The elements are spread by their hash
+ * over a power of two number of stripes, every one an OptimizedUnsortedList guarded by its own lock, so the threads
+ * only contend when they touch elements of the same stripe. All the copies of an element live in the same stripe,
+ * which keeps remove and contains in a single lock.
+ * <p>
+ * The size is kept in a {@link LongAdder} and the iterator walks a snapshot of one stripe at a time, so both are
+ * weakly consistent: they reflect the state of every stripe at some point since they were asked for, never throw
+ * {@link java.util.ConcurrentModificationException} and never block the writers for longer than a copy of a stripe.
+ * <p>
+ * Null elements are not allowed.
+ *
+ * @param <T>
+ */
+public class ConcurrentOptimizedUnsortedList<T> extends AbstractCollection<T> {
+
+    private static final int STRIPES_PER_PROCESSOR = 4;
+    private static final int MAX_STRIPES = 1 << 16;
+
+    private final OptimizedUnsortedList<T>[] stripes;
+    private final ReentrantLock[] locks;
+    private final int mask;
+    private final int shift;
+    private final LongAdder size = new LongAdder();
+
+    /**
+     * Creates a list with four stripes per available processor
+     */
+    public ConcurrentOptimizedUnsortedList() {
+        this(Runtime.getRuntime().availableProcessors() * STRIPES_PER_PROCESSOR);
+    }
+
+    /**
+     * @param concurrencyLevel the expected number of threads updating the list at once, rounded up to a power of two
+     *                         to get the number of stripes
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ConcurrentOptimizedUnsortedList(int concurrencyLevel) {
+        if (concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("the concurrency level must be positive: " + concurrencyLevel);
+        }
+        int count = Integer.highestOneBit(Math.min(MAX_STRIPES, concurrencyLevel));
+        if (count < concurrencyLevel && count < MAX_STRIPES) {
+            count <<= 1;
+        }
+        stripes = new OptimizedUnsortedList[count];
+        locks = new ReentrantLock[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new OptimizedUnsortedList<>();
+            locks[i] = new ReentrantLock();
+        }
+        mask = count - 1;
+        shift = Integer.SIZE - Integer.numberOfTrailingZeros(count);
+    }
+
+    @Override
+    public boolean add(T t) {
+        Objects.requireNonNull(t);
+        int stripe = stripeOf(t);
+        ReentrantLock lock = locks[stripe];
+        lock.lock();
+        try {
+            stripes[stripe].add(t);
+            size.increment();
+        } finally {
+            lock.unlock();
+        }
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (o == null) {
+            return false;
+        }
+        int stripe = stripeOf(o);
+        ReentrantLock lock = locks[stripe];
+        lock.lock();
+        try {
+            if (!stripes[stripe].remove(o)) {
+                return false;
+            }
+            size.decrement();
+        } finally {
+            lock.unlock();
+        }
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (o == null) {
+            return false;
+        }
+        int stripe = stripeOf(o);
+        ReentrantLock lock = locks[stripe];
+        lock.lock();
+        try {
+            return stripes[stripe].contains(o);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes any element of the list. The search starts on a random stripe and skips the stripes that other threads
+     * hold on a first pass, so the consumers taking elements at once spread over the list instead of queueing on
+     * the same lock
+     *
+     * @return the removed element
+     * @throws NoSuchElementException if every stripe was empty when it was searched
+     */
+    public T pollAny() {
+        int start = ThreadLocalRandom.current().nextInt(stripes.length);
+        for (int i = 0; i < stripes.length; i++) {
+            int stripe = (start + i) & mask;
+            ReentrantLock lock = locks[stripe];
+            if (lock.tryLock()) {
+                try {
+                    T polled = pollLast(stripe);
+                    if (polled != null) {
+                        return polled;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+        for (int i = 0; i < stripes.length; i++) {
+            int stripe = (start + i) & mask;
+            ReentrantLock lock = locks[stripe];
+            lock.lock();
+            try {
+                T polled = pollLast(stripe);
+                if (polled != null) {
+                    return polled;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        throw new NoSuchElementException();
+    }
+
+    /*
+     * Removes the last element of the stripe, or returns null if the stripe is empty. The elements are never null
+     */
+    private T pollLast(int stripe) {
+        OptimizedUnsortedList<T> list = stripes[stripe];
+        if (list.isEmpty()) {
+            return null;
+        }
+        size.decrement();
+        return list.removeLast();
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE, size.sum()));
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size.sum() <= 0;
+    }
+
+    /**
+     * Empties the stripes one by one, so an element added to a stripe that has already been emptied is kept
+     */
+    @Override
+    public void clear() {
+        for (int stripe = 0; stripe < stripes.length; stripe++) {
+            ReentrantLock lock = locks[stripe];
+            lock.lock();
+            try {
+                size.add(-stripes[stripe].size());
+                stripes[stripe].clear();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * @return a weakly consistent iterator that copies one stripe at a time. Its remove method removes one occurrence
+     * of the last returned element from the list
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private int nextStripe;
+            private Object[] snapshot = new Object[0];
+            private int cursor;
+            private T lastReturned;
+
+            @Override
+            public boolean hasNext() {
+                while (cursor == snapshot.length && nextStripe < stripes.length) {
+                    ReentrantLock lock = locks[nextStripe];
+                    lock.lock();
+                    try {
+                        snapshot = stripes[nextStripe].toArray();
+                    } finally {
+                        lock.unlock();
+                    }
+                    nextStripe++;
+                    cursor = 0;
+                }
+                return cursor < snapshot.length;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                lastReturned = (T) snapshot[cursor++];
+                return lastReturned;
+            }
+
+            @Override
+            public void remove() {
+                if (lastReturned == null) {
+                    throw new IllegalStateException();
+                }
+                ConcurrentOptimizedUnsortedList.this.remove(lastReturned);
+                lastReturned = null;
+            }
+        };
+    }
+
+    /*
+     * Takes the stripe from the high bits of the mixed hash: the HashMap of every stripe indexes by the low bits, which
+     * would otherwise be the same for all the elements of a stripe
+     */
+    private int stripeOf(Object o) {
+        return ((o.hashCode() * 0x9E3779B9) >>> shift) & mask;
+    }
+}
@@ -0,0 +1,138 @@
+package org.igm.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This interface writes the elements of an {@link OptimizedUnsortedList} to a snapshot and reads them back, see
+ * {@link UnsortedListSnapshots}. An element is encoded into a buffer that has room for its encoded size, and decoded
+ * from a buffer whose remaining bytes are exactly the ones it was encoded to. The codecs of fixed size elements save
+ * the length that is written before every variable size element.
+ *
+ * @param <T> the type of the elements
+ */
+public interface ElementCodec<T> {
+
+    /**
+     * The fixed size of the codecs whose elements don't all take the same number of bytes
+     */
+    int VARIABLE_SIZE = -1;
+
+    /**
+     * @return the number of bytes every element takes, or {@link #VARIABLE_SIZE}
+     */
+    int fixedSize();
+
+    /**
+     * @param element the element to encode
+     * @return the number of bytes the element takes
+     */
+    int encodedSize(T element);
+
+    /**
+     * Writes the element at the position of the buffer, advancing it by its encoded size
+     */
+    void encode(T element, ByteBuffer buffer);
+
+    /**
+     * Reads the element from all the remaining bytes of the buffer
+     */
+    T decode(ByteBuffer buffer);
+
+    /**
+     * @return a codec of ints as 4 bytes
+     */
+    static ElementCodec<Integer> integers() {
+        return new ElementCodec<>() {
+            @Override
+            public int fixedSize() {
+                return Integer.BYTES;
+            }
+
+            @Override
+            public int encodedSize(Integer element) {
+                return Integer.BYTES;
+            }
+
+            @Override
+            public void encode(Integer element, ByteBuffer buffer) {
+                buffer.putInt(element);
+            }
+
+            @Override
+            public Integer decode(ByteBuffer buffer) {
+                return buffer.getInt();
+            }
+        };
+    }
+
+    /**
+     * @return a codec of longs as 8 bytes
+     */
+    static ElementCodec<Long> longs() {
+        return new ElementCodec<>() {
+            @Override
+            public int fixedSize() {
+                return Long.BYTES;
+            }
+
+            @Override
+            public int encodedSize(Long element) {
+                return Long.BYTES;
+            }
+
+            @Override
+            public void encode(Long element, ByteBuffer buffer) {
+                buffer.putLong(element);
+            }
+
+            @Override
+            public Long decode(ByteBuffer buffer) {
+                return buffer.getLong();
+            }
+        };
+    }
+
+    /**
+     * @return a codec of strings as their UTF-8 bytes
+     */
+    static ElementCodec<String> strings() {
+        return new ElementCodec<>() {
+            @Override
+            public int fixedSize() {
+                return VARIABLE_SIZE;
+            }
+
+            @Override
+            public int encodedSize(String element) {
+                int size = 0;
+                for (int i = 0; i < element.length(); i++) {
+                    char c = element.charAt(i);
+                    if (c < 0x80) {
+                        size++;
+                    } else if (c < 0x800) {
+                        size += 2;
+                    } else if (Character.isHighSurrogate(c) && i + 1 < element.length()
+                            && Character.isLowSurrogate(element.charAt(i + 1))) {
+                        size += 4;
+                        i++;
+                    } else {
+                        // lone surrogates are encoded as '?'
+                        size += Character.isSurrogate(c) ? 1 : 3;
+                    }
+                }
+                return size;
+            }
+
+            @Override
+            public void encode(String element, ByteBuffer buffer) {
+                buffer.put(element.getBytes(StandardCharsets.UTF_8));
+            }
+
+            @Override
+            public String decode(ByteBuffer buffer) {
+                return StandardCharsets.UTF_8.decode(buffer).toString();
+            }
+        };
+    }
+}
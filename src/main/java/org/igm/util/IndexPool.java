@@ -0,0 +1,88 @@
+package org.igm.util;
+
+import java.util.Arrays;
+
+/**
+ * This class keeps the positions that one element occupies inside an {@link OptimizedUnsortedList}. The positions
+ * are stored in a growable primitive int array, so no {@link Integer} is created per stored element. The order of
+ * the positions is not relevant: adding is O(1) amortized and removing a known slot is O(1) as the last slot is
+ * moved into the freed one.
+ */
+final class IndexPool {
+
+    private static final int INITIAL_CAPACITY = 2;
+
+    private int[] positions;
+    private int size;
+
+    IndexPool(int position) {
+        this.positions = new int[INITIAL_CAPACITY];
+        this.positions[0] = position;
+        this.size = 1;
+    }
+
+    private IndexPool(int[] positions, int size) {
+        this.positions = positions;
+        this.size = size;
+    }
+
+    /**
+     * Adds a position to the pool
+     *
+     * @param position the position of the element in the list
+     * @return the slot where the position has been stored
+     */
+    int add(int position) {
+        if (size == positions.length) {
+            positions = Arrays.copyOf(positions, size + (size >> 1) + 1);
+        }
+        positions[size] = position;
+        return size++;
+    }
+
+    /**
+     * Removes the position stored in the given slot. The position stored in the last slot is moved to the freed one,
+     * so the caller must update the slot of that position, which is returned.
+     *
+     * @param slot the slot to free
+     * @return the position that now lives in the freed slot, or -1 if the freed slot was the last one
+     */
+    int removeSlot(int slot) {
+        size--;
+        if (slot == size) {
+            return -1;
+        }
+        positions[slot] = positions[size];
+        return positions[slot];
+    }
+
+    int get(int slot) {
+        return positions[slot];
+    }
+
+    void set(int slot, int position) {
+        positions[slot] = position;
+    }
+
+    int last() {
+        return positions[size - 1];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return positions.length;
+    }
+
+    void trimToSize() {
+        if (positions.length > size) {
+            positions = Arrays.copyOf(positions, size);
+        }
+    }
+
+    IndexPool copy() {
+        return new IndexPool(Arrays.copyOf(positions, size), size);
+    }
+}
@@ -0,0 +1,158 @@
+package org.igm.util;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * This class is the int version of {@link OptimizedUnsortedList}: insertion cost O(1), O(1) on delete and O(1) on
+ * contains, it does not mantain order and allows duplicated elements. The elements are stored in a primitive int
+ * array and indexed by {@link PrimitiveUnsortedListIndex}, so nothing is boxed: every element costs about 17 bytes
+ * instead of the hundred bytes of an Integer in an OptimizedUnsortedList.
+ */
+public final class IntOptimizedUnsortedList extends PrimitiveUnsortedListIndex {
+
+    private int[] elements = new int[INITIAL_CAPACITY];
+
+    /**
+     * Adds an element to the list
+     *
+     * @param value the element to add
+     * @return true, as the list always changes
+     */
+    public boolean add(int value) {
+        ensureRoomForOneMore();
+        int slot = slotOf(value);
+        elements[size] = value;
+        linkLast(slot);
+        return true;
+    }
+
+    /**
+     * Removes one occurrence of the element
+     *
+     * @param value the element to remove
+     * @return true if the element was present
+     */
+    public boolean remove(int value) {
+        int head = heads[slotOf(value)];
+        if (head == NONE) {
+            return false;
+        }
+        removeAt(head);
+        return true;
+    }
+
+    public boolean contains(int value) {
+        return heads[slotOf(value)] != NONE;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        elements = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * @return an iterator that doesn't box the elements. Its remove method moves the last element into the removed
+     * position, which is visited next
+     */
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int cursor;
+            private int lastReturned = NONE;
+
+            @Override
+            public boolean hasNext() {
+                return cursor < size;
+            }
+
+            @Override
+            public int nextInt() {
+                if (cursor >= size) {
+                    throw new NoSuchElementException();
+                }
+                lastReturned = cursor;
+                return elements[cursor++];
+            }
+
+            @Override
+            public void remove() {
+                if (lastReturned == NONE) {
+                    throw new IllegalStateException();
+                }
+                removeAt(lastReturned);
+                cursor = lastReturned;
+                lastReturned = NONE;
+            }
+        };
+    }
+
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(elements[i]);
+        }
+    }
+
+    public IntStream stream() {
+        return Arrays.stream(elements, 0, size);
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    /*
+     * Returns the slot of the chain of the value, or the free slot where it should be created
+     */
+    private int slotOf(int value) {
+        int mask = heads.length - 1;
+        int slot = mix(value) & mask;
+        int head;
+        while ((head = heads[slot]) != NONE && elements[head] != value) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    @Override
+    int hashAt(int position) {
+        return mix(elements[position]);
+    }
+
+    @Override
+    void copy(int from, int to) {
+        elements[to] = elements[from];
+    }
+
+    @Override
+    void resize(int capacity) {
+        elements = Arrays.copyOf(elements, capacity);
+    }
+
+    @Override
+    int capacity() {
+        return elements.length;
+    }
+
+    @Override
+    void writeElements(SnapshotBuffer out, int length) throws IOException {
+        out.putInts(elements, length);
+    }
+
+    @Override
+    void readElements(SnapshotBuffer in, int length) throws IOException {
+        in.getInts(elements, length);
+    }
+}
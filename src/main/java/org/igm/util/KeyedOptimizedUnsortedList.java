@@ -0,0 +1,166 @@
+package org.igm.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * This class is an {@link OptimizedUnsortedList} that also indexes its elements by a key extracted from them, so
+ * they can be found and removed by key in O(1) without building a probe object. The key index works as the one of
+ * the elements: a map from every key to the pool of positions holding it, and the slot of every position in its
+ * pool. It is updated through the hooks of OptimizedUnsortedList in the same step that moves the last element into
+ * a removed position, so it never needs a pass of its own.
+ * <p>
+ * The key of an element is extracted once, when it is added, and kept with its position, so a key that changes
+ * later doesn't break the index. It is extracted before the list changes, so an element whose key can't be
+ * extracted, as a null element usually is, is rejected with the exception of the key extractor and the list is
+ * left as it was. Several elements may share a key; the key methods then act on any of them.
+ *
+ * @param <T> the type of the elements
+ * @param <K> the type of the keys
+ */
+public class KeyedOptimizedUnsortedList<T, K> extends OptimizedUnsortedList<T> {
+
+    private static final int INITIAL_CAPACITY = 10;
+
+    private final Function<? super T, ? extends K> keyExtractor;
+    private HashMap<K, IndexPool> keys;
+    // the key of every position and the slot the position occupies in the pool of its key
+    private Object[] positionKeys;
+    private int[] keySlots;
+    // the key of the element being added, extracted before the list changes
+    private K addedKey;
+
+    /**
+     * @param keyExtractor the function that returns the key of an element
+     */
+    public KeyedOptimizedUnsortedList(Function<? super T, ? extends K> keyExtractor) {
+        this.keyExtractor = Objects.requireNonNull(keyExtractor);
+        this.keys = new HashMap<>();
+        this.positionKeys = new Object[INITIAL_CAPACITY];
+        this.keySlots = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * @param key the key to look for
+     * @return an element with the key, or null if there is none
+     */
+    public T getByKey(K key) {
+        IndexPool pool = keys.get(key);
+        return pool == null ? null : elementAt(pool.last());
+    }
+
+    /**
+     * @param key the key to look for
+     * @return true if an element has the key
+     */
+    public boolean containsKey(K key) {
+        return keys.containsKey(key);
+    }
+
+    /**
+     * Removes an element with the key
+     *
+     * @param key the key of the element to remove
+     * @return the removed element, or null if there was none
+     */
+    public T removeByKey(K key) {
+        IndexPool pool = keys.get(key);
+        return pool == null ? null : removePosition(pool.last());
+    }
+
+    /**
+     * @param key the key to count
+     * @return the number of elements with the key
+     */
+    public int countByKey(K key) {
+        IndexPool pool = keys.get(key);
+        return pool == null ? 0 : pool.size();
+    }
+
+    @Override
+    void placing(T element) {
+        addedKey = keyExtractor.apply(element);
+    }
+
+    @Override
+    void placed(T element, int position) {
+        if (position == keySlots.length) {
+            int capacity = position + (position >> 1) + 1;
+            keySlots = Arrays.copyOf(keySlots, capacity);
+            positionKeys = Arrays.copyOf(positionKeys, capacity);
+        }
+        K key = addedKey;
+        addedKey = null;
+        positionKeys[position] = key;
+        IndexPool pool = keys.get(key);
+        if (pool == null) {
+            keys.put(key, new IndexPool(position));
+            keySlots[position] = 0;
+        } else {
+            keySlots[position] = pool.add(position);
+        }
+    }
+
+    @Override
+    void removed(int position) {
+        Object key = positionKeys[position];
+        IndexPool pool = keys.get(key);
+        int moved = pool.removeSlot(keySlots[position]);
+        if (moved >= 0) {
+            keySlots[moved] = keySlots[position];
+        }
+        if (pool.size() == 0) {
+            keys.remove(key);
+        }
+        positionKeys[position] = null;
+    }
+
+    @Override
+    void moved(int from, int to) {
+        Object key = positionKeys[from];
+        int slot = keySlots[from];
+        keys.get(key).set(slot, to);
+        keySlots[to] = slot;
+        positionKeys[to] = key;
+        positionKeys[from] = null;
+    }
+
+    @Override
+    void resized(int capacity) {
+        keySlots = Arrays.copyOf(keySlots, capacity);
+        positionKeys = Arrays.copyOf(positionKeys, capacity);
+        HashMap<K, IndexPool> rebuilt = new HashMap<>(mapCapacity(keys.size()));
+        rebuilt.putAll(keys);
+        keys = rebuilt;
+    }
+
+    @Override
+    void cleared() {
+        keys = new HashMap<>();
+        positionKeys = new Object[INITIAL_CAPACITY];
+        keySlots = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * @return the estimate of {@link OptimizedUnsortedList#memoryFootprint()} plus the key index. The keys are not
+     * counted, as they are usually fields of the elements
+     */
+    @Override
+    public long memoryFootprint() {
+        return super.memoryFootprint() + arrayBytes(Integer.BYTES, keySlots.length)
+                + arrayBytes(REFERENCE_BYTES, positionKeys.length)
+                + indexBytes(keys, powerOfTwoAtLeast(mapCapacity(keys.size())));
+    }
+
+    /**
+     * @return a copy of the list with the same key extractor
+     */
+    @Override
+    public KeyedOptimizedUnsortedList<T, K> clone() {
+        KeyedOptimizedUnsortedList<T, K> clone = new KeyedOptimizedUnsortedList<>(keyExtractor);
+        clone.addAll(this);
+        return clone;
+    }
+}
@@ -0,0 +1,453 @@
+package org.igm.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+
+/**
+ * This class is the off heap version of {@link LongOptimizedUnsortedList}: insertion cost O(1), O(1) on delete and
+ * O(1) on contains, it does not mantain order and allows duplicated elements. The elements and their index live in
+ * three memory mapped files of a directory, so the list takes no heap nor GC time whatever its size is, and opening
+ * the directory again after the list was closed finds it as it was, without rebuilding anything:
+ * <ul>
+ *     <li>elements.bin: a header with the size and the number of distinct values, then the dense array of
+ *     elements.</li>
+ *     <li>links.bin: the next and prev links that chain the positions holding the same value.</li>
+ *     <li>table.bin: the open addressed table with the head of the chain of every value, stored plus one so that
+ *     the zeros of a new file are free slots.</li>
+ * </ul>
+ * The index is the one of {@link PrimitiveUnsortedListIndex}, and removing a value moves the last element into its
+ * position as every other unsorted list does. The files grow by half their size when full and the table is rebuilt
+ * into a new file that replaces the old one, so an interrupted growth leaves the previous table in place.
+ * <p>
+ * The files are only consistent with each other after {@link #force()} or {@link #close()}. The pages of a mapped
+ * file reach the disk in no particular order, so if the process or the machine stops after a change that was not
+ * forced the directory may hold a header that doesn't match the elements and the index, and it must not be reopened.
+ * Every file is mapped whole, so the list holds up to {@link #MAX_CAPACITY} elements and {@link #MAX_DISTINCT}
+ * distinct values. The instances are not thread safe.
+ */
+public final class MappedLongOptimizedUnsortedList implements Closeable {
+
+    /**
+     * The greatest number of elements a list can hold, as every file is mapped in one buffer
+     */
+    public static final int MAX_CAPACITY = (Integer.MAX_VALUE - 64) / Long.BYTES;
+
+    // the largest power of two of ints that can be mapped in one buffer
+    private static final int MAX_TABLE_CAPACITY = 1 << 28;
+
+    /**
+     * The greatest number of distinct elements a list can hold, three quarters of the largest table mapped in one
+     * buffer, so the table never gets fuller than that and its probes stay short
+     */
+    public static final int MAX_DISTINCT = MAX_TABLE_CAPACITY / 4 * 3;
+
+    private static final String ELEMENTS_FILE = "elements.bin";
+    private static final String LINKS_FILE = "links.bin";
+    private static final String TABLE_FILE = "table.bin";
+    private static final String NEW_TABLE_FILE = "table.bin.new";
+
+    private static final int MAGIC = 0x4F554C4D;
+    private static final int VERSION = 1;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int SIZE_OFFSET = 8;
+    private static final int DISTINCT_OFFSET = 12;
+    private static final int HEADER_BYTES = 64;
+    private static final int LINK_BYTES = 2 * Integer.BYTES;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int INITIAL_TABLE_CAPACITY = 2048;
+    private static final int NONE = -1;
+
+    private final Path directory;
+    private MappedByteBuffer elements;
+    private MappedByteBuffer links;
+    private MappedByteBuffer table;
+    private int capacity;
+    private int tableMask;
+    private int size;
+    private int distinct;
+    private boolean closed;
+
+    private MappedLongOptimizedUnsortedList(Path directory) throws IOException {
+        this.directory = directory;
+        Path elementsFile = directory.resolve(ELEMENTS_FILE);
+        Files.deleteIfExists(directory.resolve(NEW_TABLE_FILE));
+        if (Files.exists(elementsFile)) {
+            elements = map(elementsFile, Files.size(elementsFile));
+            if (elements.capacity() < HEADER_BYTES || elements.getInt(MAGIC_OFFSET) != MAGIC) {
+                throw new IOException("not a list: " + elementsFile);
+            }
+            if (elements.getInt(VERSION_OFFSET) != VERSION) {
+                throw new IOException("unsupported version " + elements.getInt(VERSION_OFFSET) + ": " + elementsFile);
+            }
+            size = elements.getInt(SIZE_OFFSET);
+            distinct = elements.getInt(DISTINCT_OFFSET);
+            capacity = (elements.capacity() - HEADER_BYTES) / Long.BYTES;
+            links = map(directory.resolve(LINKS_FILE), (long) capacity * LINK_BYTES);
+            Path tableFile = directory.resolve(TABLE_FILE);
+            table = map(tableFile, Files.size(tableFile));
+        } else {
+            Files.deleteIfExists(directory.resolve(LINKS_FILE));
+            Files.deleteIfExists(directory.resolve(TABLE_FILE));
+            capacity = INITIAL_CAPACITY;
+            links = map(directory.resolve(LINKS_FILE), (long) capacity * LINK_BYTES);
+            table = map(directory.resolve(TABLE_FILE), (long) INITIAL_TABLE_CAPACITY * Integer.BYTES);
+            // the header goes last, so a directory without it is always created from scratch
+            elements = map(elementsFile, HEADER_BYTES + (long) capacity * Long.BYTES);
+            elements.putInt(VERSION_OFFSET, VERSION);
+            elements.putInt(MAGIC_OFFSET, MAGIC);
+        }
+        tableMask = table.capacity() / Integer.BYTES - 1;
+    }
+
+    /**
+     * Opens the list stored in the directory, creating an empty one if there is none
+     *
+     * @param directory the directory of the files of the list
+     * @return the list
+     * @throws IOException if the files can't be mapped or don't hold a list
+     */
+    public static MappedLongOptimizedUnsortedList open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        return new MappedLongOptimizedUnsortedList(directory);
+    }
+
+    /**
+     * Adds an element to the list
+     *
+     * @param value the element to add
+     * @return true, as the list always changes
+     * @throws IOException if the files can't grow
+     * @throws IllegalStateException if the list holds {@link #MAX_CAPACITY} elements, or the element is new and the
+     *                               list holds {@link #MAX_DISTINCT} distinct elements
+     */
+    public boolean add(long value) throws IOException {
+        ensureOpen();
+        int slot = slotOf(value);
+        int head = head(slot);
+        if (head == NONE && distinct == MAX_DISTINCT) {
+            throw new IllegalStateException("the table is full: " + MAX_DISTINCT + " distinct elements");
+        }
+        if (size == capacity) {
+            grow();
+        }
+        int position = size;
+        elements.putLong(elementOffset(position), value);
+        setPrev(position, NONE);
+        setNext(position, head);
+        if (head != NONE) {
+            setPrev(head, position);
+        }
+        setHead(slot, position);
+        setSize(size + 1);
+        if (head == NONE) {
+            setDistinct(distinct + 1);
+            if (distinct * 4L > (tableMask + 1) * 3L) {
+                rehash((tableMask + 1) * 2);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes one occurrence of the element
+     *
+     * @param value the element to remove
+     * @return true if the element was present
+     */
+    public boolean remove(long value) {
+        ensureOpen();
+        int head = head(slotOf(value));
+        if (head == NONE) {
+            return false;
+        }
+        removeAt(head);
+        return true;
+    }
+
+    public boolean contains(long value) {
+        ensureOpen();
+        return head(slotOf(value)) != NONE;
+    }
+
+    /**
+     * @param position a position below the size of the list
+     * @return the element stored in the position
+     */
+    public long get(int position) {
+        ensureOpen();
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("position " + position + " of a list of " + size);
+        }
+        return elements.getLong(elementOffset(position));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the number of distinct elements of the list
+     */
+    public int distinct() {
+        return distinct;
+    }
+
+    /**
+     * @return an iterator that doesn't box the elements. Its remove method moves the last element into the removed
+     * position, which is visited next
+     */
+    public PrimitiveIterator.OfLong iterator() {
+        ensureOpen();
+        return new PrimitiveIterator.OfLong() {
+            private int cursor;
+            private int lastReturned = NONE;
+
+            @Override
+            public boolean hasNext() {
+                return cursor < size;
+            }
+
+            @Override
+            public long nextLong() {
+                if (cursor >= size) {
+                    throw new NoSuchElementException();
+                }
+                lastReturned = cursor;
+                return elements.getLong(elementOffset(cursor++));
+            }
+
+            @Override
+            public void remove() {
+                if (lastReturned == NONE) {
+                    throw new IllegalStateException();
+                }
+                ensureOpen();
+                removeAt(lastReturned);
+                cursor = lastReturned;
+                lastReturned = NONE;
+            }
+        };
+    }
+
+    public void forEach(LongConsumer action) {
+        ensureOpen();
+        for (int i = 0; i < size; i++) {
+            action.accept(elements.getLong(elementOffset(i)));
+        }
+    }
+
+    /**
+     * Writes the changes of the three files to the disk
+     */
+    public void force() {
+        ensureOpen();
+        links.force();
+        table.force();
+        elements.force();
+    }
+
+    /**
+     * Writes the changes to the disk and closes the list. The files are unmapped when the buffers are collected
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            force();
+            closed = true;
+        }
+    }
+
+    private void removeAt(int position) {
+        unlink(position);
+        int last = size - 1;
+        if (position != last) {
+            elements.putLong(elementOffset(position), elements.getLong(elementOffset(last)));
+            int before = prev(last);
+            int after = next(last);
+            if (before == NONE) {
+                setHead(slotOfHead(last), position);
+            } else {
+                setNext(before, position);
+            }
+            if (after != NONE) {
+                setPrev(after, position);
+            }
+            setPrev(position, before);
+            setNext(position, after);
+        }
+        setSize(last);
+    }
+
+    private void unlink(int position) {
+        int before = prev(position);
+        int after = next(position);
+        if (before == NONE) {
+            int slot = slotOfHead(position);
+            if (after == NONE) {
+                deleteSlot(slot);
+                setDistinct(distinct - 1);
+            } else {
+                setHead(slot, after);
+                setPrev(after, NONE);
+            }
+        } else {
+            setNext(before, after);
+            if (after != NONE) {
+                setPrev(after, before);
+            }
+        }
+    }
+
+    /*
+     * Returns the slot of the chain of the value, or the free slot where it should be created
+     */
+    private int slotOf(long value) {
+        int slot = hash(value) & tableMask;
+        int head;
+        while ((head = head(slot)) != NONE && elements.getLong(elementOffset(head)) != value) {
+            slot = (slot + 1) & tableMask;
+        }
+        return slot;
+    }
+
+    /*
+     * Returns the slot of the table that points to the given position, which must be the head of its chain
+     */
+    private int slotOfHead(int position) {
+        int slot = hashAt(position) & tableMask;
+        while (head(slot) != position) {
+            slot = (slot + 1) & tableMask;
+        }
+        return slot;
+    }
+
+    /*
+     * Frees a slot shifting back the entries that would not be found otherwise, as PrimitiveUnsortedListIndex does
+     */
+    private void deleteSlot(int slot) {
+        int free = slot;
+        int current = slot;
+        while (true) {
+            current = (current + 1) & tableMask;
+            int head = head(current);
+            if (head == NONE) {
+                setHead(free, NONE);
+                return;
+            }
+            int home = hashAt(head) & tableMask;
+            if (free <= current ? (home <= free || home > current) : (home <= free && home > current)) {
+                setHead(free, head);
+                free = current;
+            }
+        }
+    }
+
+    private void grow() throws IOException {
+        if (capacity == MAX_CAPACITY) {
+            throw new IllegalStateException("the list is full: " + MAX_CAPACITY + " elements");
+        }
+        int newCapacity = (int) Math.min(MAX_CAPACITY, capacity + (capacity >> 1) + 1L);
+        links = map(directory.resolve(LINKS_FILE), (long) newCapacity * LINK_BYTES);
+        elements = map(directory.resolve(ELEMENTS_FILE), HEADER_BYTES + (long) newCapacity * Long.BYTES);
+        capacity = newCapacity;
+    }
+
+    /*
+     * Builds the new table in its own file and moves it over the old one once it is complete
+     */
+    private void rehash(int tableCapacity) throws IOException {
+        Path newTableFile = directory.resolve(NEW_TABLE_FILE);
+        Files.deleteIfExists(newTableFile);
+        MappedByteBuffer newTable = map(newTableFile, (long) tableCapacity * Integer.BYTES);
+        int mask = tableCapacity - 1;
+        for (int slot = 0; slot <= tableMask; slot++) {
+            int head = head(slot);
+            if (head != NONE) {
+                int newSlot = hashAt(head) & mask;
+                while (newTable.getInt(newSlot * Integer.BYTES) != 0) {
+                    newSlot = (newSlot + 1) & mask;
+                }
+                newTable.putInt(newSlot * Integer.BYTES, head + 1);
+            }
+        }
+        newTable.force();
+        Files.move(newTableFile, directory.resolve(TABLE_FILE), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        table = newTable;
+        tableMask = mask;
+    }
+
+    private static MappedByteBuffer map(Path file, long bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("the list is closed");
+        }
+    }
+
+    private static int hash(long value) {
+        return PrimitiveUnsortedListIndex.mix(Long.hashCode(value));
+    }
+
+    private int hashAt(int position) {
+        return hash(elements.getLong(elementOffset(position)));
+    }
+
+    private static int elementOffset(int position) {
+        return HEADER_BYTES + position * Long.BYTES;
+    }
+
+    private int head(int slot) {
+        return table.getInt(slot * Integer.BYTES) - 1;
+    }
+
+    private void setHead(int slot, int position) {
+        table.putInt(slot * Integer.BYTES, position + 1);
+    }
+
+    private int next(int position) {
+        return links.getInt(position * LINK_BYTES);
+    }
+
+    private void setNext(int position, int next) {
+        links.putInt(position * LINK_BYTES, next);
+    }
+
+    private int prev(int position) {
+        return links.getInt(position * LINK_BYTES + Integer.BYTES);
+    }
+
+    private void setPrev(int position, int prev) {
+        links.putInt(position * LINK_BYTES + Integer.BYTES, prev);
+    }
+
+    private void setSize(int size) {
+        this.size = size;
+        elements.putInt(SIZE_OFFSET, size);
+    }
+
+    private void setDistinct(int distinct) {
+        this.distinct = distinct;
+        elements.putInt(DISTINCT_OFFSET, distinct);
+    }
+}
@@ -1,8 +1,17 @@
 package org.igm.util;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
-import java.text.DecimalFormat;
-import java.util.Locale;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.igm.util.NumberWordsProfile.Words;
 
 /**
  * This class is used to convert numbers to spanish. Please note than
@@ -19,13 +28,22 @@ public class NumberToSpanishWords {
   public static final String DECIMAL_SEPARATOR = ".";
 
   //Private
-  private static final String SCAPE = "\\";
-  private static final String ZERO = "cero";
-  private static final String MINUS = "menos";
-  private static final String FORMAT_MASK = "000000000000000000000";
+  // the words below are shared with SpanishWordsToNumber
+  static final String ZERO = "cero";
+  static final String MINUS = "menos";
+  static final String ONE_HUNDRED_ALONE = "cien";
+  // the sign is counted too
+  static final int MAX_INTEGER_LENGTH = 21;
+  private static final BigInteger ONE_HUNDRED = BigInteger.valueOf(100);
+  private static final long ONE_MILLION = 1_000_000L;
+  private static final int ONE_MILLION_DIGITS = 6;
+  // the decimal digits read by convert(String)
+  private static final int DEFAULT_DECIMAL_PRECISION = 2;
+  // the numbers converted sequentially with the same scratch builder by convertAll
+  private static final int BULK_CHUNK_SIZE = 4096;
 
   // the position 0 is never visited but is added for making numbers match with its value
-  private static final String[] NUM_NAMES = {
+  static final String[] NUM_NAMES = {
       "", "un", "dos", "tres", "cuatro", "cinco",
       "seis", "siete", "ocho", "nueve",
       "diez", "once", "doce", "trece", "catorce",
@@ -33,181 +51,325 @@ public class NumberToSpanishWords {
       "veintiun", "veintid\u00F3s", "veintitr\u00E9s", "veinticuatro", "veinticinco",
       "veintis\u00E9is", "veintisiete", "veintiocho", "veintinueve"};
 
-  private static final String[] TENS_NAMES = {
+  static final String[] TENS_NAMES = {
       "", "diez", "veinte", "treinta", "cuarenta", "cincuenta",
       "sesenta", "setenta", "ochenta", "noventa", "ciento"};
 
-  private static final String[] HUNDREDS_NAMES = {
+  static final String[] HUNDREDS_NAMES = {
       "", "ciento", "doscientos", "trescientos", "cuatrocientos", "quinientos",
       "seiscientos", "setecientos", "ochocientos", "novecientos"};
 
 
-  private static final String[] POWER_NAMES = {
-      "mil", "millones", "mil", "billones", "mil", "trillones"};
+  // the prefixes of the powers of one million on the long scale, from millones to vigintillones
+  private static final String[] LONG_SCALE_PREFIXES = {
+      "m", "b", "tr", "cuatr", "quint", "sext", "sept", "oct", "non", "dec",
+      "undec", "duodec", "tredec", "cuatordec", "quindec", "sexdec", "septendec", "octodec",
+      "novendec", "vigint"};
 
+  // mil, millones, mil, billones, mil, trillones and so on
+  static final String[] POWER_NAMES = powerNames("illones", "");
 
-  private static final String[] SINGLE_POWER_NAMES = {
-      "mil", "un mill\u00F3n", "mil", "un bill\u00F3n", "mil", "un trill\u00F3n"};
+  // mil, un millón, mil, un billón, mil, un trillón and so on
+  static final String[] SINGLE_POWER_NAMES = powerNames("ill\u00F3n", "un ");
+
+  // the digits of the greatest integer part that can be named, 999 vigintillones 999 mil and so on
+  public static final int MAX_DIGITS = 3 * (POWER_NAMES.length + 1);
+
+  // powers of one thousand, to split a long in groups of three digits
+  private static final long[] THOUSANDS = {
+      1L, 1_000L, 1_000_000L, 1_000_000_000L, 1_000_000_000_000L, 1_000_000_000_000_000L,
+      1_000_000_000_000_000_000L};
+
+  /**
+   * The letter case the words are written in. The title case capitalizes every word but the
+   * conjunctions "y" and "con", for example "Ciento Veintiuno con Cincuenta"
+   */
+  public enum LetterCase {
+    UPPER, LOWER, TITLE
+  }
 
   private NumberToSpanishWords(){
   }
 
-  private static String convertNumberDifferentToZero(final String _number) {
-    final StringBuilder ret = new StringBuilder();
-
-    BigDecimal number = new BigDecimal(_number);
-    boolean isNegative = number.compareTo(BigDecimal.ZERO) < 0;
-    if (isNegative) {
-      number = number.multiply(BigDecimal.valueOf(-1l));
-    }
-
-    final String maskedNumber = new DecimalFormat(FORMAT_MASK).format(number);
-
-    // XXXnnnnnnnnnnnnnnnnnn  (American quintillions, european trillions)
-    final int quintillions = Integer.parseInt(maskedNumber.substring(0, 3));
-    // nnnXXXnnnnnnnnnnnnnnn (European thousands of billions)
-    final int quadrillions = Integer.parseInt(maskedNumber.substring(3, 6));
-    // nnnnnnXXXnnnnnnnnnnnn
-    final int trillions = Integer.parseInt(maskedNumber.substring(6, 9));
-    // nnnnnnnnnXXXnnnnnnnnn
-    final int billions = Integer.parseInt(maskedNumber.substring(9, 12));
-    // nnnnnnnnnnnnXXXnnnnnn
-    final int millions = Integer.parseInt(maskedNumber.substring(12, 15));
-    // nnnnnnnnnnnnnnnXXXnnn
-    final int thousands = Integer.parseInt(maskedNumber.substring(15, 18));
-    // nnnnnnnnnnnnnnnnnnXXX
-    final int hundreds = Integer.parseInt(maskedNumber.substring(18, 21));
-
-    final String result = new StringBuilder()
-        .append(convertPower(quintillions, 5)).append(' ')
-        .append(convertPowerThousands(quadrillions, 4, trillions)).append(' ')
-        .append(convertPower(trillions, 3)).append(' ')
-        .append(convertPowerThousands(billions, 2, millions)).append(' ')
-        .append(convertPower(millions, 1)).append(' ')
-        .append(convertPower(thousands, 0)).append(' ')
-        .append(convertLessThanOneThousand(hundreds))
-        .toString();
-
-    if (isNegative) {
-      ret.append(MINUS).append(' ');
-    }
-
-    // remove extra spaces
-    ret.append(result.replaceAll("^\\s+", "").replaceAll("\\b\\s{2,}\\b", " ").trim());
-
-    return ret.toString();
-  }
-
-  private static String convertPowerGeneralCase(final int _number,
-      final int _power, final int lesserPoweredNumber) {
-    final StringBuilder ret = new StringBuilder();
-    if (_number != 0) {
-      ret.append(convertLessThanOneThousand(_number))
-          .append(' ')
-          .append(POWER_NAMES[_power]);
-      if (lesserPoweredNumber == 0) {
-        ret.append(" ")
-            .append(POWER_NAMES[_power - 1]);
-      }
+  /*
+   * The words of the default profile. They aren't kept in a field, since the profiles are built
+   * from the tables of this class
+   */
+  private static Words spanish(final LetterCase letterCase) {
+    return NumberWordsProfile.SPANISH.words(letterCase);
+  }
+
+  private static String[] powerNames(final String suffix, final String article) {
+    final String[] names = new String[LONG_SCALE_PREFIXES.length * 2];
+    for (int i = 0; i < LONG_SCALE_PREFIXES.length; i++) {
+      names[2 * i] = "mil";
+      names[2 * i + 1] = article + LONG_SCALE_PREFIXES[i] + suffix;
     }
-    return ret.toString();
+    return names;
+  }
+
+  /*
+   * Writes the words of a number that has already been validated, reading its parts from the
+   * validation instead of parsing it again
+   */
+  private static void write(final CharSequence _number, final NumberValidation validation,
+      final Words words, final Appendable out) throws IOException {
+    write(_number, validation, DEFAULT_DECIMAL_PRECISION, words, out);
   }
 
-  private static String convertLessThanOneThousand(final int _number) {
-    final StringBuilder ret = new StringBuilder();
-    if (_number == 100) {
-      ret.append("cien");
+  /*
+   * Writes the words of a number that has already been validated, reading as many decimal digits
+   * as the precision tells. The currencies always read two
+   */
+  private static void write(final CharSequence _number, final NumberValidation validation,
+      final int decimalPrecision, final Words words, final Appendable out) throws IOException {
+    if (!validation.isValid()) {
+      throw new NumberFormatException("the number format is not accepted");
+    }
+    final int integerEnd = validation.getIntegerEnd();
+    int firstSignificant = validation.getIntegerStart();
+    while (firstSignificant < integerEnd && _number.charAt(firstSignificant) == '0') {
+      firstSignificant++;
+    }
+
+    if (firstSignificant == integerEnd) {
+      out.append(words.zero);
     } else {
-      ret.append(HUNDREDS_NAMES[_number / 100])
-          .append(' ')
-          .append(convertLessThanOneHundred(_number % 100));
+      boolean written = false;
+      if (validation.isNegative()) {
+        written = appendWord(words.minus, false, out);
+      }
+      appendDigits(_number, firstSignificant, integerEnd, words.last, words, written, out);
+    }
+
+    if (words.currency) {
+      int lowerZeros = 0;
+      while (lowerZeros < ONE_MILLION_DIGITS && integerEnd - lowerZeros > firstSignificant
+          && _number.charAt(integerEnd - lowerZeros - 1) == '0') {
+        lowerZeros++;
+      }
+      appendCurrency(firstSignificant == integerEnd - 1 && _number.charAt(firstSignificant) == '1',
+          lowerZeros == ONE_MILLION_DIGITS && integerEnd - firstSignificant > ONE_MILLION_DIGITS,
+          validation.hasFraction() ? fractionHundredths(_number, validation) : 0, words, out);
+    } else if (validation.hasFraction()) {
+      appendFraction(_number, validation.getFractionStart(),
+          Math.min(validation.getFractionEnd(), validation.getFractionStart() + decimalPrecision),
+          decimalPrecision, words, out);
     }
-    return ret.toString();
   }
 
-  private static String convertLessThanOneHundred(final int _number) {
-    final StringBuilder ret = new StringBuilder();
+  /*
+   * Returns the two left-most digits of the decimal part as a number from 0 to 99
+   */
+  private static int fractionHundredths(final CharSequence _number,
+      final NumberValidation validation) {
+    final int fractionStart = validation.getFractionStart();
+    final int tens = _number.charAt(fractionStart) - '0';
+    final int units = validation.getFractionEnd() - fractionStart > 1
+        ? _number.charAt(fractionStart + 1) - '0'
+        : 0;
+    return tens * 10 + units;
+  }
+
+  /*
+   * Writes the words of the digits from start, which is not a zero, to end, closing them with the
+   * given table
+   */
+  private static boolean appendDigits(final CharSequence digits, final int start, final int end,
+      final String[] last, final Words words, final boolean written, final Appendable out)
+      throws IOException {
+    boolean groupWritten = written;
+    final int groups = (end - start + 2) / 3;
+    for (int group = groups - 1; group >= 0; group--) {
+      groupWritten = appendGroup(group, digitGroup(digits, start, end, group),
+          group > 0 ? digitGroup(digits, start, end, group - 1) : 0, last, words, groupWritten,
+          out);
+    }
+    return groupWritten;
+  }
 
-    if (_number < 30) {
-      ret.append(" ").append(NUM_NAMES[_number]);
+  /*
+   * Writes the digits of the decimal part from start to end, which are followed by as many zeros
+   * as needed to reach the precision. The leading zeros are read aloud, so with a precision of 2 a
+   * "5" is "cincuenta" and a "05" is "cero cinco"
+   */
+  private static void appendFraction(final CharSequence _number, final int start, final int end,
+      final int decimalPrecision, final Words words, final Appendable out) throws IOException {
+    int firstSignificant = start;
+    while (firstSignificant < end && _number.charAt(firstSignificant) == '0') {
+      firstSignificant++;
+    }
+    if (firstSignificant == end) {
+      return;
+    }
+    out.append(words.conjunction);
+    boolean written = false;
+    for (int i = start; i < firstSignificant; i++) {
+      written = appendWord(words.zero, written, out);
+    }
+    if (end - start == decimalPrecision) {
+      appendDigits(_number, firstSignificant, end, words.decimals, words, written, out);
     } else {
-      ret.append(" ").append(TENS_NAMES[_number / 10]);
-      final String num = NUM_NAMES[_number % 10];
-      if (!"".equals(num)) {
-        ret.append(" y ").append(NUM_NAMES[_number % 10]);
+      final StringBuilder padded = new StringBuilder(decimalPrecision)
+          .append(_number, firstSignificant, end);
+      while (padded.length() < decimalPrecision - (firstSignificant - start)) {
+        padded.append('0');
       }
+      appendDigits(padded, 0, padded.length(), words.decimals, words, written, out);
     }
-    return ret.toString();
   }
 
   /*
-   * This method takes care of european millions, billions, trillions, etc. Is important to
-   * know that doesn't convert thousands of millions, as in english one hundred millions is
-   * une billion but in spanish, one hundred millions are one hundred millions
+   * Writes the name of the currency after the integer part, preceded by "de" after a round number
+   * of millions, and the hundredths of the currency, if any
    */
-  private static String convertPower(final int _number,
-      final int _power) {
-    return _number == 1
-        ? SINGLE_POWER_NAMES[_power]
-        : convertPowerGeneralCase(_number, _power, -1);
+  private static void appendCurrency(final boolean isOne, final boolean isRoundMillions,
+      final int hundredths, final Words words, final Appendable out) throws IOException {
+    if (isRoundMillions) {
+      appendWord(words.preposition, true, out);
+    }
+    appendWord(isOne ? words.singular : words.plural, true, out);
+    if (hundredths != 0) {
+      out.append(words.conjunction).append(words.decimals[hundredths]);
+      appendWord(hundredths == 1 ? words.minorSingular : words.minorPlural, true, out);
+    }
   }
 
   /*
-   * This method takes care of the hundreds of millions that in european notation are not billions
+   * Writes the words of a number whose integer part is a long, which is read as unsigned so that
+   * the absolute value of Long.MIN_VALUE can be represented. The decimals are the two left-most
+   * digits of the decimal part, as a number from 0 to 99
    */
-  private static String convertPowerThousands(final int _number, final int _power,
-      final int lesserNumber) {
-    StringBuilder ret = new StringBuilder();
-
-    if (_number == 1) {
-      ret.append(SINGLE_POWER_NAMES[_power]);
-      ret.append(" ");
-      if (lesserNumber <= 0) {
-        ret.append(POWER_NAMES[_power -1]);
+  private static void write(final boolean isNegative, final long _unsignedNumber,
+      final int _decimals, final Words words, final Appendable out) throws IOException {
+    if (_unsignedNumber == 0) {
+      out.append(words.zero);
+    } else {
+      boolean written = false;
+      if (isNegative) {
+        written = appendWord(words.minus, false, out);
+      }
+      int groups = 1;
+      while (groups < THOUSANDS.length
+          && Long.compareUnsigned(_unsignedNumber, THOUSANDS[groups]) >= 0) {
+        groups++;
+      }
+      for (int group = groups - 1; group >= 0; group--) {
+        written = appendGroup(group, longGroup(_unsignedNumber, group),
+            group > 0 ? longGroup(_unsignedNumber, group - 1) : 0, words.last, words, written,
+            out);
       }
+    }
+    if (words.currency) {
+      appendCurrency(_unsignedNumber == 1,
+          Long.compareUnsigned(_unsignedNumber, ONE_MILLION) >= 0
+              && Long.remainderUnsigned(_unsignedNumber, ONE_MILLION) == 0,
+          _decimals, words, out);
     } else {
-      ret.append(convertPowerGeneralCase(_number, _power, lesserNumber));
+      appendDecimalPart(_decimals, words, out);
     }
-    return ret.toString();
   }
 
-  /**
-   * This method parses the two digits located at left-most position.
-   *
-   * @param decimal
-   * @return
+  /*
+   * The digits are taken in groups of three starting from the right: the group 0 holds the units,
+   * the group 1 the thousands, the group 2 the millions, the group 3 the thousands of millions and
+   * so on, so the even groups from the 2nd on are named after POWER_NAMES and the odd ones are
+   * thousands of the group below them. The group 0 is written with the given table. Every append
+   * method receives and returns whether any word has been written already, so the words are
+   * separated without looking back at the output
    */
-  private static String parseDecimalPart(String decimal) {
+  private static boolean appendGroup(final int group, final int value, final int lesserValue,
+      final String[] last, final Words words, final boolean written, final Appendable out)
+      throws IOException {
+    if (group == 0) {
+      return value != 0 ? appendWord(last[value], written, out) : written;
+    } else if (group == 1) {
+      return appendPower(value, 0, words, written, out);
+    } else if (group % 2 == 0) {
+      return appendPower(value, group - 1, words, written, out);
+    }
+    return appendPowerThousands(value, group - 1, lesserValue, words, written, out);
+  }
 
-    decimal = decimal.substring(0, decimal.length() < 2 ? decimal.length() : 2);
+  /*
+   * Returns the value of the three digits group, the group 0 being the right-most one
+   */
+  private static int digitGroup(final CharSequence _number, final int start, final int end,
+      final int group) {
+    final int last = end - 3 * group;
+    int value = 0;
+    for (int i = Math.max(start, last - 3); i < last; i++) {
+      value = value * 10 + (_number.charAt(i) - '0');
+    }
+    return value;
+  }
 
-    Integer retValue = Integer.valueOf(decimal);
-    String concat = "";
-    if (retValue < 10) {
-      if (!decimal.startsWith("0")) {
-        retValue *= 10;
-      } else {
-        concat = ZERO + " ";
-      }
+  private static int longGroup(final long _unsignedNumber, final int group) {
+    return (int) Long.remainderUnsigned(Long.divideUnsigned(_unsignedNumber, THOUSANDS[group]),
+        1000);
+  }
+
+  /*
+   * This method takes care of european millions, billions, trillions, etc. Is important to
+   * know that doesn't convert thousands of millions, as in english one hundred millions is
+   * une billion but in spanish, one hundred millions are one hundred millions. The thousands
+   * (power 0) agree with the gender of the profile, the powers of one million are masculine
+   */
+  private static boolean appendPower(final int _number, final int _power, final Words words,
+      final boolean written, final Appendable out) throws IOException {
+    if (_number == 1) {
+      return appendWord(words.singlePowerNames[_power], written, out);
+    } else if (_number != 0) {
+      appendWord(_power == 0 ? words.beforeThousand[_number] : words.beforePower[_number],
+          written, out);
+      return appendWord(words.powerNames[_power], true, out);
+    }
+    return written;
+  }
+
+  /*
+   * This method takes care of the hundreds of millions that in european notation are not billions
+   */
+  private static boolean appendPowerThousands(final int _number, final int _power,
+      final int lesserNumber, final Words words, final boolean written, final Appendable out)
+      throws IOException {
+    if (_number == 0) {
+      return written;
+    }
+    appendPower(_number, _power, words, written, out);
+    if (lesserNumber == 0) {
+      appendWord(words.powerNames[_power - 1], true, out);
     }
+    return true;
+  }
 
-    if (retValue > 0) {
-      return concat + convertFormattedString(retValue.toString());
+  /*
+   * Appends a word separated by a space from the previous one, if any
+   */
+  private static boolean appendWord(final String word, final boolean written,
+      final Appendable out) throws IOException {
+    if (written) {
+      out.append(' ');
     }
-    return "";
+    out.append(word);
+    return true;
   }
 
-  private static String convertFormattedString(final String _number) {
-    final StringBuilder ret = new StringBuilder();
-    //Is big decimal as the numer could be really big
-    if (new BigDecimal(_number).compareTo(BigDecimal.ZERO) == 0) {
-      return ZERO;
+  /**
+   * This method appends the two digits located at left-most position of the decimal part, given as
+   * a number from 0 to 99. A single digit is read as tens, so "5" (50) is "cincuenta", and a
+   * leading zero is read aloud, so "05" (5) is "cero cinco"
+   */
+  private static void appendDecimalPart(final int _decimals, final Words words,
+      final Appendable out) throws IOException {
+    if (_decimals == 0) {
+      return;
     }
-    ret.append(convertNumberDifferentToZero(_number));
-    if (_number.endsWith("1") && !_number.endsWith("11")) {
-      ret.append("o");
+    out.append(words.conjunction);
+    if (_decimals < 10) {
+      out.append(words.zero).append(' ');
     }
-    return ret.toString();
+    out.append(words.decimals[_decimals]);
   }
 
   /**
@@ -243,36 +405,351 @@ public class NumberToSpanishWords {
    * @return the number parsed as words
    */
   public static String convert(final String _number) {
-    StringBuilder stringified = new StringBuilder();
+    return convert(_number, LetterCase.UPPER);
+  }
 
-    if (!isStringAcceptedAsNumber(_number)) {
+  /**
+   * This method converts a number contained on a string to words in spanish as
+   * {@link #convert(String)} does, but the integer part can have up to {@link #MAX_DIGITS} digits,
+   * reaching the vigintillones, and the decimal part is read with the given number of digits
+   * instead of two: the digits beyond the precision are truncated and the missing ones are zeros,
+   * so with a precision of 3, 1.05 is "UNO CON CERO CINCUENTA" and 1.0005 is "UNO"
+   *
+   * @param _number          the number to be parsed
+   * @param decimalPrecision the number of decimal digits that are read, 0 to ignore the decimals
+   * @return the number parsed as words
+   */
+  public static String convert(final CharSequence _number, final int decimalPrecision) {
+    if (decimalPrecision < 0 || decimalPrecision > MAX_DIGITS) {
+      throw new IllegalArgumentException("the decimal precision must be between 0 and "
+          + MAX_DIGITS);
+    }
+    final NumberValidation validation = new NumberValidation().validate(_number, MAX_DIGITS + 1);
+    // the limit of the validation counts the sign, which isn't a digit
+    if (validation.getIntegerEnd() - validation.getIntegerStart() > MAX_DIGITS) {
       throw new NumberFormatException("the number format is not accepted");
     }
-    String[] parts = _number.split(SCAPE + DECIMAL_SEPARATOR);
-    int numberOfZeros = FORMAT_MASK.length() - parts[0].length();
+    final StringBuilder stringified = new StringBuilder(128);
+    try {
+      write(_number, validation, decimalPrecision, spanish(LetterCase.UPPER), stringified);
+    } catch (IOException e) {
+      // a StringBuilder never throws it
+      throw new UncheckedIOException(e);
+    }
+    return stringified.toString();
+  }
 
-    StringBuilder formattedString = new StringBuilder();
-    if(parts[0].startsWith("-")) {
-      formattedString.append("-");
-      formattedString.append(new String(new char[numberOfZeros]).replace('\0', '0'));
-      formattedString.append(parts[0].substring(1));
-    } else {
-      formattedString.append(new String(new char[numberOfZeros]).replace('\0', '0'));
-      formattedString.append(parts[0]);
+  /**
+   * This method converts a number contained on a string to words in spanish written in the given
+   * letter case, following the rules of {@link #convert(String)}
+   *
+   * @param _number    the number to be parsed
+   * @param letterCase the letter case of the words
+   * @return the number parsed as words
+   */
+  public static String convert(final CharSequence _number, final LetterCase letterCase) {
+    return convert(_number, letterCase, new StringBuilder(64)).toString();
+  }
+
+  /**
+   * This method appends the words of a number to the given builder, in the given letter case and
+   * following the rules of {@link #convert(String)}, so that a builder can be reused for many
+   * numbers without creating any intermediate String
+   *
+   * @param _number    the number to be parsed
+   * @param letterCase the letter case of the words
+   * @param out        the builder the words are appended to
+   * @return the given builder
+   * @throws NumberFormatException if the number isn't accepted, before anything is appended
+   */
+  public static StringBuilder convert(final CharSequence _number, final LetterCase letterCase,
+      final StringBuilder out) {
+    return convert(_number, new NumberValidation().validate(_number), letterCase, out);
+  }
+
+  /**
+   * This method appends the words of a number that has already been validated to the given
+   * builder, reading the parts of the number from the validation instead of parsing it again. The
+   * validation must be the last one of that same number
+   *
+   * @param _number    the number to be parsed
+   * @param validation the result of validating the number
+   * @param letterCase the letter case of the words
+   * @param out        the builder the words are appended to
+   * @return the given builder
+   * @throws NumberFormatException if the number isn't accepted, before anything is appended
+   */
+  public static StringBuilder convert(final CharSequence _number,
+      final NumberValidation validation, final LetterCase letterCase, final StringBuilder out) {
+    try {
+      write(_number, validation, spanish(letterCase), out);
+    } catch (IOException e) {
+      // a StringBuilder never throws it
+      throw new UncheckedIOException(e);
+    }
+    return out;
+  }
+
+  /**
+   * This method writes the words of a number in upper case straight into the given output,
+   * following the rules of {@link #convert(String)}
+   *
+   * @param _number the number to be parsed
+   * @param out     the output the words are written to
+   * @throws IOException           if the output fails
+   * @throws NumberFormatException if the number isn't accepted, before anything is written
+   */
+  public static void convert(final CharSequence _number, final Appendable out)
+      throws IOException {
+    convert(_number, LetterCase.UPPER, out);
+  }
+
+  /**
+   * This method writes the words of a number in the given letter case straight into the given
+   * output, following the rules of {@link #convert(String)}
+   *
+   * @param _number    the number to be parsed
+   * @param letterCase the letter case of the words
+   * @param out        the output the words are written to
+   * @throws IOException           if the output fails
+   * @throws NumberFormatException if the number isn't accepted, before anything is written
+   */
+  public static void convert(final CharSequence _number, final LetterCase letterCase,
+      final Appendable out) throws IOException {
+    final NumberValidation validation = new NumberValidation().validate(_number);
+    write(_number, validation, spanish(letterCase), out);
+  }
+
+  /**
+   * This method converts a number contained on a string to words in upper case following the
+   * rules of the given profile, for example as an amount of euros. The number is accepted and its
+   * decimals read as {@link #convert(String)} does
+   *
+   * @param _number the number to be parsed
+   * @param profile the rules the words follow
+   * @return the number parsed as words
+   */
+  public static String convert(final CharSequence _number, final NumberWordsProfile profile) {
+    final StringBuilder stringified = new StringBuilder(64);
+    try {
+      convert(_number, profile, LetterCase.UPPER, stringified);
+    } catch (IOException e) {
+      // a StringBuilder never throws it
+      throw new UncheckedIOException(e);
+    }
+    return stringified.toString();
+  }
+
+  /**
+   * This method writes the words of a number straight into the given output, in the given letter
+   * case and following the rules of the given profile
+   *
+   * @param _number    the number to be parsed
+   * @param profile    the rules the words follow
+   * @param letterCase the letter case of the words
+   * @param out        the output the words are written to
+   * @throws IOException           if the output fails
+   * @throws NumberFormatException if the number isn't accepted, before anything is written
+   */
+  public static void convert(final CharSequence _number, final NumberWordsProfile profile,
+      final LetterCase letterCase, final Appendable out) throws IOException {
+    final NumberValidation validation = new NumberValidation().validate(_number);
+    write(_number, validation, profile.words(letterCase), out);
+  }
+
+  /**
+   * This method converts a BigDecimal to words in upper case following the rules of the given
+   * profile, giving the same result than {@link #convert(CharSequence, NumberWordsProfile)} with
+   * {@link BigDecimal#toPlainString()}
+   *
+   * @param _number the number to be converted
+   * @param profile the rules the words follow
+   * @return the number as words
+   */
+  public static String convert(final BigDecimal _number, final NumberWordsProfile profile) {
+    return write(_number, new NumberValidation(), profile.words(LetterCase.UPPER),
+        new StringBuilder(64)).toString();
+  }
+
+  /**
+   * This method converts a long to words in spanish, giving the same result than
+   * {@link #convert(String)} with its decimal representation, without formatting it
+   *
+   * @param _number the number to be converted
+   * @return the number as words
+   */
+  public static String convert(final long _number) {
+    final StringBuilder stringified = new StringBuilder(64);
+    try {
+      write(_number < 0, _number < 0 ? -_number : _number, 0, spanish(LetterCase.UPPER),
+          stringified);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
     }
+    return stringified.toString();
+  }
+
+  /**
+   * This method converts an int to words in spanish, giving the same result than
+   * {@link #convert(String)} with its decimal representation, without formatting it
+   *
+   * @param _number the number to be converted
+   * @return the number as words
+   */
+  public static String convert(final int _number) {
+    return convert((long) _number);
+  }
+
+  /**
+   * This method converts a BigDecimal to words in spanish, giving the same result than
+   * {@link #convert(String)} with {@link BigDecimal#toPlainString()}: any digit beyond the second
+   * on decimals is truncated and the integer part (with the sign) cannot exceed from 21 characters.
+   * The numbers whose integer part fits in a long are converted without formatting them
+   *
+   * @param _number the number to be converted
+   * @return the number as words
+   */
+  public static String convert(final BigDecimal _number) {
+    return write(_number, new NumberValidation(), spanish(LetterCase.UPPER),
+        new StringBuilder(64)).toString();
+  }
 
-    stringified.append(convertFormattedString(formattedString.toString()));
+  /**
+   * This method converts every number of the array as {@link #convert(String)} does, but a number
+   * that isn't accepted doesn't stop the conversion: its error is reported in the result and the
+   * rest of the numbers are converted. The array is split in chunks that are converted in parallel
+   * in the common fork-join pool, reusing one builder per chunk, and the words keep the order of
+   * the numbers. A null number is reported as not accepted
+   *
+   * @param _numbers the numbers to be parsed
+   * @return the words of every number, or its error
+   */
+  public static BulkConversionResult convertAll(final CharSequence[] _numbers) {
+    final Words words = spanish(LetterCase.UPPER);
+    return convertAll(_numbers.length, (i, validation, scratch) -> {
+      if (_numbers[i] == null) {
+        throw new NumberFormatException("the number format is not accepted");
+      }
+      write(_numbers[i], validation.validate(_numbers[i]), words, scratch);
+    });
+  }
 
-    if (parts.length > 1) {
-      if (parts[1].length() > 2) {
-        parts[1] = parts[1].substring(0, 2);
+  /**
+   * This method converts every number of the array as {@link #convert(BigDecimal)} does, reporting
+   * the errors as {@link #convertAll(CharSequence[])} does
+   *
+   * @param _numbers the numbers to be converted
+   * @return the words of every number, or its error
+   */
+  public static BulkConversionResult convertAll(final BigDecimal[] _numbers) {
+    final Words words = spanish(LetterCase.UPPER);
+    return convertAll(_numbers.length, (i, validation, scratch) -> {
+      if (_numbers[i] == null) {
+        throw new NumberFormatException("the number format is not accepted");
       }
-      String decimal = parseDecimalPart(parts[1]);
-      if (!decimal.isEmpty()) {
-        stringified.append(CONJUNCTION).append(decimal);
+      write(_numbers[i], validation, words, scratch);
+    });
+  }
+
+  /**
+   * This method converts every number of the stream as {@link #convert(String)} does, reporting
+   * the errors as {@link #convertAll(CharSequence[])} does. The words keep the encounter order of
+   * the stream
+   *
+   * @param _numbers the numbers to be parsed
+   * @return the words of every number, or its error
+   */
+  public static BulkConversionResult convertAll(final Stream<? extends CharSequence> _numbers) {
+    return convertAll(_numbers.toArray(CharSequence[]::new));
+  }
+
+  /**
+   * This method converts every number of the array as {@link #convert(long)} does, in parallel
+   * chunks as {@link #convertAll(CharSequence[])}. Every long can be converted, so there are no
+   * errors to report
+   *
+   * @param _numbers the numbers to be converted
+   * @return the words of every number, in the same order
+   */
+  public static String[] convertAll(final long[] _numbers) {
+    final Words words = spanish(LetterCase.UPPER);
+    return convertAll(_numbers.length, (i, validation, scratch) -> {
+      final long number = _numbers[i];
+      write(number < 0, number < 0 ? -number : number, 0, words, scratch);
+    }).getWords();
+  }
+
+  /*
+   * Writes the words of a BigDecimal: the numbers whose integer part fits in a long are written
+   * without formatting them, the rest are formatted and parsed as a string with the given
+   * validation
+   */
+  private static StringBuilder write(final BigDecimal _number, final NumberValidation validation,
+      final Words words, final StringBuilder out) {
+    final BigDecimal absolute = _number.abs();
+    final BigInteger integerPart = absolute.toBigInteger();
+    final int decimals = absolute.scale() > 0
+        ? absolute.movePointRight(2).toBigInteger().mod(ONE_HUNDRED).intValue()
+        : 0;
+
+    try {
+      if (integerPart.bitLength() < Long.SIZE) {
+        write(_number.signum() < 0, integerPart.longValue(), decimals, words, out);
+      } else {
+        final String plain = _number.toPlainString();
+        write(plain, validation.validate(plain), words, out);
       }
+    } catch (IOException e) {
+      // a StringBuilder never throws it
+      throw new UncheckedIOException(e);
+    }
+    return out;
+  }
+
+  /*
+   * Writes the element of the given index into the scratch builder, which is empty. The validation
+   * can be reused to validate the element
+   */
+  @FunctionalInterface
+  private interface ElementWriter {
+    void write(int index, NumberValidation validation, StringBuilder scratch) throws IOException;
+  }
+
+  /*
+   * Converts every element in chunks of BULK_CHUNK_SIZE, each one with its own scratch builder and
+   * validation. The chunks are run in parallel when there is more than one. The errors are rare, so
+   * every chunk keeps its own in a map that is only created on the first one
+   */
+  private static BulkConversionResult convertAll(final int size, final ElementWriter writer) {
+    final String[] converted = new String[size];
+    final int chunks = (size + BULK_CHUNK_SIZE - 1) / BULK_CHUNK_SIZE;
+    IntStream chunkIndexes = IntStream.range(0, chunks);
+    if (chunks > 1) {
+      chunkIndexes = chunkIndexes.parallel();
     }
-    return stringified.toString().toUpperCase(Locale.getDefault());
+    final SortedMap<Integer, NumberFormatException> errors = new TreeMap<>();
+    chunkIndexes.mapToObj(chunk -> {
+      final StringBuilder scratch = new StringBuilder(128);
+      final NumberValidation validation = new NumberValidation();
+      final int end = Math.min(size, (chunk + 1) * BULK_CHUNK_SIZE);
+      Map<Integer, NumberFormatException> chunkErrors = null;
+      for (int i = chunk * BULK_CHUNK_SIZE; i < end; i++) {
+        scratch.setLength(0);
+        try {
+          writer.write(i, validation, scratch);
+          converted[i] = scratch.toString();
+        } catch (NumberFormatException e) {
+          if (chunkErrors == null) {
+            chunkErrors = new HashMap<>();
+          }
+          chunkErrors.put(i, e);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+      return chunkErrors;
+    }).filter(Objects::nonNull).forEachOrdered(errors::putAll);
+    return new BulkConversionResult(converted, errors);
   }
 
   /**
@@ -285,13 +762,40 @@ public class NumberToSpanishWords {
    * @return true if the string is a number susceptible to be parsed
    */
   public static boolean isStringAcceptedAsNumber(final String _number) {
-    if( _number.matches("[-]?[0-9]+([" + SCAPE + DECIMAL_SEPARATOR + "]([0-9]+))?")) {
-      String numberAux = _number;
-      if (_number.contains(DECIMAL_SEPARATOR)) {
-        numberAux = _number.split(SCAPE + DECIMAL_SEPARATOR)[0];
+    return new NumberValidation().validate(_number).isValid();
+  }
+
+  /**
+   * This method validates a number, telling whether it can be parsed by this class and where its
+   * parts are. See {@link NumberValidation}
+   *
+   * @param _number the number to validate
+   * @return the result of the validation
+   */
+  public static NumberValidation validate(final CharSequence _number) {
+    return new NumberValidation().validate(_number);
+  }
+
+  /**
+   * This method tells whether every number of the array can be parsed by this class, as
+   * {@link #isStringAcceptedAsNumber(String)} does, without allocating anything
+   *
+   * @param _numbers the numbers to validate
+   * @param accepted receives at every position whether the number at that position is accepted
+   * @return the number of accepted numbers
+   */
+  public static int validateAll(final CharSequence[] _numbers, final boolean[] accepted) {
+    if (accepted.length < _numbers.length) {
+      throw new IllegalArgumentException("there must be a result for every number");
+    }
+    final NumberValidation validation = new NumberValidation();
+    int acceptedCount = 0;
+    for (int i = 0; i < _numbers.length; i++) {
+      accepted[i] = validation.validate(_numbers[i]).isValid();
+      if (accepted[i]) {
+        acceptedCount++;
       }
-      return numberAux.length() <= FORMAT_MASK.length();
     }
-    return false;
+    return acceptedCount;
   }
 }
@@ -0,0 +1,138 @@
+package org.igm.util;
+
+/**
+ * This class validates the numbers accepted by {@link NumberToSpanishWords}, [-]digits[.digits]
+ * with an integer part (with the sign) of 21 characters at most, and keeps where their parts are.
+ * The number is read once, char by char, and the validation stops at the first char that isn't
+ * accepted.
+ * <p>
+ * The instances are mutable and meant to be reused: {@link #validate(CharSequence)} overwrites the
+ * result of the previous validation, so validating many numbers with the same instance doesn't
+ * allocate anything. They are not thread safe.
+ */
+public final class NumberValidation {
+
+  private static final char MINUS = '-';
+
+  private boolean valid;
+  private boolean negative;
+  private int integerStart;
+  private int integerEnd;
+  private int fractionStart;
+  private int fractionEnd;
+  private int errorIndex;
+
+  /**
+   * Validates the number, replacing the result of the previous validation
+   *
+   * @param _number the number to validate
+   * @return this instance, holding the result
+   */
+  public NumberValidation validate(final CharSequence _number) {
+    return validate(_number, NumberToSpanishWords.MAX_INTEGER_LENGTH);
+  }
+
+  /*
+   * Validates the number with the given limit on the length of the integer part, sign included
+   */
+  NumberValidation validate(final CharSequence _number, final int maxIntegerLength) {
+    final int length = _number.length();
+    negative = length > 0 && _number.charAt(0) == MINUS;
+    integerStart = negative ? 1 : 0;
+    integerEnd = integerStart;
+    while (integerEnd < length && isDigit(_number.charAt(integerEnd))) {
+      integerEnd++;
+    }
+    fractionStart = integerEnd;
+    fractionEnd = integerEnd;
+
+    if (integerEnd == integerStart) {
+      return reject(integerStart);
+    }
+    if (integerEnd > maxIntegerLength) {
+      return reject(maxIntegerLength);
+    }
+    if (integerEnd < length) {
+      if (_number.charAt(integerEnd) != NumberToSpanishWords.DECIMAL_SEPARATOR.charAt(0)) {
+        return reject(integerEnd);
+      }
+      fractionStart = integerEnd + 1;
+      fractionEnd = fractionStart;
+      while (fractionEnd < length && isDigit(_number.charAt(fractionEnd))) {
+        fractionEnd++;
+      }
+      if (fractionEnd == fractionStart || fractionEnd != length) {
+        return reject(fractionEnd);
+      }
+    }
+    valid = true;
+    errorIndex = -1;
+    return this;
+  }
+
+  private NumberValidation reject(final int index) {
+    valid = false;
+    errorIndex = index;
+    return this;
+  }
+
+  private static boolean isDigit(final char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  /**
+   * @return true if the number is accepted. The rest of the result is only meaningful if it is
+   */
+  public boolean isValid() {
+    return valid;
+  }
+
+  /**
+   * @return true if the number starts with a minus sign
+   */
+  public boolean isNegative() {
+    return negative;
+  }
+
+  /**
+   * @return the index of the first digit of the integer part
+   */
+  public int getIntegerStart() {
+    return integerStart;
+  }
+
+  /**
+   * @return the index after the last digit of the integer part
+   */
+  public int getIntegerEnd() {
+    return integerEnd;
+  }
+
+  /**
+   * @return true if the number has a decimal separator followed by digits
+   */
+  public boolean hasFraction() {
+    return fractionEnd > fractionStart;
+  }
+
+  /**
+   * @return the index of the first digit of the fraction part, the integer end if there is none
+   */
+  public int getFractionStart() {
+    return fractionStart;
+  }
+
+  /**
+   * @return the index after the last digit of the fraction part, the integer end if there is none
+   */
+  public int getFractionEnd() {
+    return fractionEnd;
+  }
+
+  /**
+   * @return the index of the first char that isn't accepted, -1 if the number is valid
+   */
+  public int getErrorIndex() {
+    return errorIndex;
+  }
+}
@@ -0,0 +1,266 @@
+package org.igm.util;
+
+import java.util.Locale;
+import java.util.function.UnaryOperator;
+
+/**
+ * This class holds the rules {@link NumberToSpanishWords} follows to write a number: the
+ * grammatical gender of the numerals and, optionally, the currency the number is an amount of.
+ * Every profile is compiled once, on creation, into the tables of the words of every number below
+ * one thousand in every {@link NumberToSpanishWords.LetterCase}, so converting with a profile costs
+ * the same than converting with the default one.
+ * <p>
+ * These are the profiles and what they write for 201.01:
+ * <ul>
+ *     <li>{@link #SPANISH}, the default: "doscientos uno con cero uno".</li>
+ *     <li>{@link #SPANISH_FEMININE}: "doscientas una con cero uno". The powers of one million are
+ *     nouns, so they stay masculine: "doscientos millones".</li>
+ *     <li>{@link #EUROS}: "doscientos un euros con un céntimo". The currency profiles read the
+ *     decimals as hundredths of the currency, and add "de" after a round number of millions:
+ *     "un millón de euros". The minor unit may have its own gender, as in "treinta y una libras con
+ *     treinta y un peniques". See
+ *     {@link #currency(String, String, String, String, boolean, boolean)}.</li>
+ * </ul>
+ * The profiles are immutable and thread safe.
+ */
+public final class NumberWordsProfile {
+
+  private static final String FEMININE_ONE_SUFFIX = "a";
+  private static final String MASCULINE_ONE_SUFFIX = "o";
+  private static final String CURRENCY_PREPOSITION = "de";
+  // the case of the words never depends on the default locale
+  private static final Locale WORDS_LOCALE = Locale.forLanguageTag("es");
+
+  private static final String[] FEMININE_HUNDREDS_NAMES = {
+      "", "ciento", "doscientas", "trescientas", "cuatrocientas", "quinientas",
+      "seiscientas", "setecientas", "ochocientas", "novecientas"};
+
+  // the words that are not capitalized on title case
+  private static final String[] LOWER_CASE_WORDS = {"y", "con", CURRENCY_PREPOSITION};
+
+  /**
+   * The words of NumberToSpanishWords
+   */
+  public static final NumberWordsProfile SPANISH = new NumberWordsProfile(false, false, null);
+
+  /**
+   * The numerals agree with a feminine noun
+   */
+  public static final NumberWordsProfile SPANISH_FEMININE =
+      new NumberWordsProfile(true, true, null);
+
+  /**
+   * Amounts of euros and céntimos
+   */
+  public static final NumberWordsProfile EUROS =
+      currency("euro", "euros", "c\u00E9ntimo", "c\u00E9ntimos", false);
+
+  private final boolean feminine;
+  private final boolean minorFeminine;
+  private final String[] currencyNames;
+  // indexed by LetterCase ordinal
+  private final Words[] words;
+
+  private NumberWordsProfile(final boolean feminine, final boolean minorFeminine,
+      final String[] currencyNames) {
+    this.feminine = feminine;
+    this.minorFeminine = minorFeminine;
+    this.currencyNames = currencyNames;
+    words = new Words[] {
+        new Words(this, words -> words.toUpperCase(WORDS_LOCALE)),
+        new Words(this, UnaryOperator.identity()),
+        new Words(this, NumberWordsProfile::toTitleCase)};
+  }
+
+  /**
+   * Creates the profile of a currency whose minor unit has its same gender. The numbers that
+   * precede the currency name are apocopated, as "veintiun euros", or take the feminine form if the
+   * currency is feminine, as "veintiuna libras". The minor unit is the hundredth part of the
+   * currency
+   *
+   * @param singular      the name of one unit of the currency
+   * @param plural        the name of several units of the currency
+   * @param minorSingular the name of one hundredth of the currency
+   * @param minorPlural   the name of several hundredths of the currency
+   * @param feminine      true if the names are feminine
+   * @return the profile
+   */
+  public static NumberWordsProfile currency(final String singular, final String plural,
+      final String minorSingular, final String minorPlural, final boolean feminine) {
+    return currency(singular, plural, minorSingular, minorPlural, feminine, feminine);
+  }
+
+  /**
+   * Creates the profile of a currency as {@link #currency(String, String, String, String,
+   * boolean)} does, with a minor unit of its own gender: the decimals agree with it, as in
+   * "treinta y una libras con treinta y un peniques"
+   *
+   * @param singular      the name of one unit of the currency
+   * @param plural        the name of several units of the currency
+   * @param minorSingular the name of one hundredth of the currency
+   * @param minorPlural   the name of several hundredths of the currency
+   * @param feminine      true if the names of the currency are feminine
+   * @param minorFeminine true if the names of the minor unit are feminine
+   * @return the profile
+   */
+  public static NumberWordsProfile currency(final String singular, final String plural,
+      final String minorSingular, final String minorPlural, final boolean feminine,
+      final boolean minorFeminine) {
+    return new NumberWordsProfile(feminine, minorFeminine,
+        new String[] {singular, plural, minorSingular, minorPlural, CURRENCY_PREPOSITION});
+  }
+
+  /**
+   * @return true if the numerals agree with a feminine noun
+   */
+  public boolean isFeminine() {
+    return feminine;
+  }
+
+  /**
+   * @return true if the decimals agree with a feminine minor unit of the currency
+   */
+  public boolean isMinorFeminine() {
+    return minorFeminine;
+  }
+
+  /**
+   * @return true if the number is written as an amount of a currency
+   */
+  public boolean isCurrency() {
+    return currencyNames != null;
+  }
+
+  Words words(final NumberToSpanishWords.LetterCase letterCase) {
+    return words[letterCase.ordinal()];
+  }
+
+  private static String toTitleCase(final String words) {
+    final StringBuilder title = new StringBuilder(words.length());
+    int wordStart = 0;
+    for (int i = 0; i <= words.length(); i++) {
+      if (i == words.length() || words.charAt(i) == ' ') {
+        final String word = words.substring(wordStart, i);
+        if (word.isEmpty() || isLowerCaseWord(word)) {
+          title.append(word);
+        } else {
+          title.append(word.substring(0, 1).toUpperCase(WORDS_LOCALE))
+              .append(word, 1, word.length());
+        }
+        if (i < words.length()) {
+          title.append(' ');
+        }
+        wordStart = i + 1;
+      }
+    }
+    return title.toString();
+  }
+
+  private static boolean isLowerCaseWord(final String word) {
+    for (String lowerCaseWord : LOWER_CASE_WORDS) {
+      if (lowerCaseWord.equals(word)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /*
+   * Returns the words of a number below one thousand. The units ending in "un" take the suffix, so
+   * an empty suffix leaves them apocopated ("veintiun mil") and "o" or "a" close them ("veintiuno",
+   * "veintiuna"). The position 0 is empty
+   */
+  private static String lessThanOneThousand(final int number, final String[] hundredsNames,
+      final String oneSuffix) {
+    final StringBuilder words = new StringBuilder();
+    if (number == 100) {
+      return NumberToSpanishWords.ONE_HUNDRED_ALONE;
+    }
+    if (number >= 100) {
+      words.append(hundredsNames[number / 100]);
+    }
+    final int lessThanOneHundred = number % 100;
+    if (lessThanOneHundred != 0 && words.length() > 0) {
+      words.append(' ');
+    }
+    if (lessThanOneHundred < 30) {
+      words.append(NumberToSpanishWords.NUM_NAMES[lessThanOneHundred]);
+    } else {
+      words.append(NumberToSpanishWords.TENS_NAMES[lessThanOneHundred / 10]);
+      if (lessThanOneHundred % 10 != 0) {
+        words.append(" y ").append(NumberToSpanishWords.NUM_NAMES[lessThanOneHundred % 10]);
+      }
+    }
+    if (number % 10 == 1 && number % 100 != 11) {
+      words.append(oneSuffix);
+    }
+    return words.toString();
+  }
+
+  /*
+   * The words of a profile written in one letter case, so the case is never changed on the
+   * converted phrase. Every table holds the words of every number below one thousand in one
+   * position of the phrase: beforePower before a power of one million, which is a masculine noun
+   * ("ciento un millones"); beforeThousand before "mil", which agrees with the profile gender
+   * ("doscientas mil"); last closing the integer part ("ciento uno", or "ciento un" before a
+   * currency); and decimals for the decimal part, which agree with the minor unit of a currency
+   */
+  static final class Words {
+
+    final String[] beforePower = new String[1000];
+    final String[] beforeThousand = new String[1000];
+    final String[] last = new String[1000];
+    final String[] decimals = new String[1000];
+    final String[] powerNames = new String[NumberToSpanishWords.POWER_NAMES.length];
+    final String[] singlePowerNames = new String[NumberToSpanishWords.SINGLE_POWER_NAMES.length];
+    final String conjunction;
+    final String zero;
+    final String minus;
+    final boolean currency;
+    // the names of the currency, null if there is none
+    final String singular;
+    final String plural;
+    final String minorSingular;
+    final String minorPlural;
+    final String preposition;
+
+    private Words(final NumberWordsProfile profile, final UnaryOperator<String> letterCase) {
+      final String[] hundredsNames = profile.feminine
+          ? FEMININE_HUNDREDS_NAMES
+          : NumberToSpanishWords.HUNDREDS_NAMES;
+      final String genderSuffix = profile.feminine ? FEMININE_ONE_SUFFIX : MASCULINE_ONE_SUFFIX;
+      currency = profile.isCurrency();
+      for (int number = 0; number < 1000; number++) {
+        beforePower[number] = letterCase.apply(
+            lessThanOneThousand(number, NumberToSpanishWords.HUNDREDS_NAMES, ""));
+        beforeThousand[number] = letterCase.apply(lessThanOneThousand(number, hundredsNames, ""));
+        if (currency) {
+          // the currency name follows, so the masculine numbers stay apocopated
+          last[number] = letterCase.apply(lessThanOneThousand(number, hundredsNames,
+              profile.feminine ? FEMININE_ONE_SUFFIX : ""));
+          decimals[number] = letterCase.apply(lessThanOneThousand(number,
+              profile.minorFeminine ? FEMININE_HUNDREDS_NAMES : NumberToSpanishWords.HUNDREDS_NAMES,
+              profile.minorFeminine ? FEMININE_ONE_SUFFIX : ""));
+        } else {
+          last[number] = letterCase.apply(lessThanOneThousand(number, hundredsNames,
+              genderSuffix));
+          decimals[number] = letterCase.apply(lessThanOneThousand(number,
+              NumberToSpanishWords.HUNDREDS_NAMES, MASCULINE_ONE_SUFFIX));
+        }
+      }
+      for (int i = 0; i < powerNames.length; i++) {
+        powerNames[i] = letterCase.apply(NumberToSpanishWords.POWER_NAMES[i]);
+        singlePowerNames[i] = letterCase.apply(NumberToSpanishWords.SINGLE_POWER_NAMES[i]);
+      }
+      conjunction = letterCase.apply(NumberToSpanishWords.CONJUNCTION);
+      zero = letterCase.apply(NumberToSpanishWords.ZERO);
+      minus = letterCase.apply(NumberToSpanishWords.MINUS);
+      final String[] names = profile.currencyNames;
+      singular = currency ? letterCase.apply(names[0]) : null;
+      plural = currency ? letterCase.apply(names[1]) : null;
+      minorSingular = currency ? letterCase.apply(names[2]) : null;
+      minorPlural = currency ? letterCase.apply(names[3]) : null;
+      preposition = currency ? letterCase.apply(names[4]) : null;
+    }
+  }
+}
@@ -1,63 +1,386 @@
 package org.igm.util;
 
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
- * This class mantains an unsorted list that has insertion cost O(1 + O(log(m)) being m the number of occurrences of a
- * duplicated element when inserted, O(1) on delete, O(1) on access, does not mantain order and allows duplicated
- * elements. The counterpart of this list is consuming O(2n) space
+ * This class mantains an unsorted list that has insertion cost O(1), O(1) on delete, O(1) on access and O(1) on
+ * contains, does not mantain order and allows duplicated elements. The positions of every element are kept in a map
+ * of primitive int pools, and every position knows its slot in the pool of its element, so the swap with the last
+ * element done when deleting never has to search. The counterpart of this list is consuming O(2n) space
+ * <p>
+ * The list shrinks its arrays and its map when it holds less than a quarter of what they can hold, down to twice its
+ * size, so a list that spikes and then drains gives the memory back. It never shrinks on its own below the capacity
+ * it was created with; {@link #trimToSize()} releases all the spare room at once and {@link #memoryFootprint()}
+ * estimates what the list takes.
  *
  * @param <T>
  */
 public class OptimizedUnsortedList<T> implements Collection<T> {
 
+    private static final int INITIAL_CAPACITY = 10;
+    private static final int INITIAL_MAP_CAPACITY = 16;
+    // the arrays and the map shrink when they hold less than a quarter of what they can hold
+    private static final int SHRINK_RATIO = 4;
+    private static final int MIN_SHRINK_CAPACITY = 64;
+
+    // the estimated sizes of the objects on a 64 bits JVM with compressed references
+    static final int REFERENCE_BYTES = 4;
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private static final int LIST_BYTES = 32;
+    private static final int ARRAY_LIST_BYTES = 24;
+    private static final int HASH_MAP_BYTES = 48;
+    private static final int MAP_ENTRY_BYTES = 32;
+    private static final int INDEX_POOL_BYTES = 24;
+
+    // the capacities the list was created with, below which it never shrinks on its own
+    private final int minCapacity;
+    private final int minMapCapacity;
+
     private ArrayList<T> list;
-    private HashMap<T, PriorityQueue<Integer>> map;
+    // the length of the array of the list, tracked as it isn't visible: the list is always created with the capacity
+    // it needs and never grows on its own
+    private int listCapacity;
+    private HashMap<T, IndexPool> map;
+    // slots[i] is the slot that the position i occupies in the pool of list.get(i)
+    private int[] slots;
+    // the length of the table of the map, tracked as HashMap grows it as it isn't visible
+    private int mapTableCapacity;
+    // the number of structural changes, checked by the iterators and the spliterators
+    private int modCount;
 
     public OptimizedUnsortedList(){
-        this.list = new ArrayList<>();
-        this.map = new HashMap<>();
+        this(0, 0);
+    }
+
+    /**
+     * Creates an empty list that holds the given number of elements, all of them distinct, without growing
+     *
+     * @param capacity the expected number of elements
+     */
+    public OptimizedUnsortedList(int capacity) {
+        this(capacity, capacity);
+    }
+
+    /**
+     * Creates an empty list that holds the given number of elements and distinct elements without growing
+     *
+     * @param capacity the expected number of elements
+     * @param distinct the expected number of distinct elements
+     */
+    public OptimizedUnsortedList(int capacity, int distinct) {
+        if (capacity < 0 || distinct < 0) {
+            throw new IllegalArgumentException("negative capacity: " + capacity + " elements, " + distinct
+                    + " distinct");
+        }
+        this.minCapacity = Math.max(INITIAL_CAPACITY, capacity);
+        this.minMapCapacity = mapCapacity(distinct);
+        allocate();
     }
 
+    /*
+     * The list must have been created with the length of the slots as its capacity
+     */
+    private OptimizedUnsortedList(ArrayList<T> list, HashMap<T, IndexPool> map, int mapTableCapacity, int[] slots,
+                                  int minCapacity, int minMapCapacity) {
+        this.minCapacity = minCapacity;
+        this.minMapCapacity = minMapCapacity;
+        this.list = list;
+        this.listCapacity = slots.length;
+        this.map = map;
+        this.mapTableCapacity = mapTableCapacity;
+        this.slots = slots;
+    }
+
+    /*
+     * Creates the empty arrays and map with the capacities the list was created with
+     */
+    private void allocate() {
+        list = new ArrayList<>(minCapacity);
+        listCapacity = minCapacity;
+        map = new HashMap<>(minMapCapacity);
+        mapTableCapacity = powerOfTwoAtLeast(minMapCapacity);
+        slots = new int[minCapacity];
+    }
 
     @Override
     public boolean add(T t) {
-        if (map.containsKey(t)) {
-            map.get(t).add(list.size());
+        placing(t);
+        int position = list.size();
+        ensureCapacity(position + 1);
+        index(t, position);
+        modCount++;
+        list.add(t);
+        placed(t, position);
+        return true;
+    }
+
+    /*
+     * Stores the position of the element in its pool, the slots array must have room for it
+     */
+    private void index(T t, int position) {
+        IndexPool pool = map.get(t);
+        if (pool == null) {
+            map.put(t, new IndexPool(position));
+            slots[position] = 0;
+            if (map.size() > mapTableCapacity / 4 * 3) {
+                mapTableCapacity <<= 1;
+            }
         } else {
-            PriorityQueue<Integer> set = new PriorityQueue<>(Collections.reverseOrder());
-            set.add(list.size());
-            map.put(t, set);
+            slots[position] = pool.add(position);
+        }
+    }
+
+    /*
+     * Grows the slots and the list together, by half their length at least, so the capacity of the list is always
+     * the length of the slots
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity > slots.length) {
+            reallocate(Math.max(capacity, slots.length + (slots.length >> 1) + 1));
         }
-        return list.add(t);
     }
 
     @Override
     public boolean remove(Object o) {
-        if(!this.contains(o)) {
+        IndexPool pool = map.get(o);
+        if (pool == null) {
             return false;
         }
+        removeAt(pool.last(), pool, o);
+        return true;
+    }
+
+    /*
+     * Deletes the element stored in the given position, which is filled with the last element of the list so it
+     * keeps being dense. The pool of the deleted element and the slot of the moved element are fixed in O(1)
+     */
+    private void removeAt(int position, IndexPool pool, Object element) {
+        removed(position);
+        int moved = pool.removeSlot(slots[position]); //free the slot of the deleted position
+        if (moved >= 0) {
+            slots[moved] = slots[position];
+        }
+        if (pool.size() == 0) {
+            map.remove(element); //deleted the object in the map
+        }
+
+        int lastIndex = list.size() - 1;
+        if (position != lastIndex) {
+            T last = list.get(lastIndex);
+            list.set(position, last); // replace the element to delete for the last one in the list
+            int lastSlot = slots[lastIndex];
+            map.get(last).set(lastSlot, position); // the last element now lives in the freed position
+            slots[position] = lastSlot;
+            moved(lastIndex, position);
+        }
+        list.remove(lastIndex); //delete last object as it has been copied
+        modCount++;
+        shrinkIfSparse();
+    }
+
+    /*
+     * Deletes the last element of the list, which needs no swap. The list must not be empty
+     */
+    T removeLast() {
+        int lastIndex = list.size() - 1;
+        T last = list.get(lastIndex);
+        removeAt(lastIndex, map.get(last), last);
+        return last;
+    }
+
+    /*
+     * Deletes the element stored in the given position and returns it
+     */
+    T removePosition(int position) {
+        T element = list.get(position);
+        removeAt(position, map.get(element), element);
+        return element;
+    }
+
+    T elementAt(int position) {
+        return list.get(position);
+    }
+
+    /*
+     * The hooks of the subclasses that index the positions of the elements by other means, as
+     * KeyedOptimizedUnsortedList does. placing is called before an element is added, while the list is untouched, so if
+     * it throws the element is rejected and the list is left as it was. The others are called after the element is
+     * stored in a new position, before the element of a position is deleted, after the element of a position is moved
+     * into another one by the swap with the last element or the compaction of the bulk removals, after the arrays of
+     * the positions are shrunk, and before the list is emptied
+     */
+    void placing(T element) {
+    }
+
+    void placed(T element, int position) {
+    }
+
+    void removed(int position) {
+    }
+
+    void moved(int from, int to) {
+    }
+
+    void resized(int capacity) {
+    }
 
-        PriorityQueue<Integer> charIndexes = map.get(o);
+    void cleared() {
+    }
 
-        T last = list.get(list.size() - 1); //get last index
-        list.set(charIndexes.peek(), last); // replace the char to delete for the last one in the list
+    /**
+     * Returns an element chosen uniformly at random, every occurrence of a duplicated element counting once. As the
+     * list is dense this is a single access to a random position
+     *
+     * @param random the source of randomness
+     * @return the chosen element
+     * @throws NoSuchElementException if the list is empty
+     */
+    public T sample(Random random) {
+        if (list.isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return list.get(random.nextInt(list.size()));
+    }
 
-        PriorityQueue<Integer> swap = map.get(last); //get the last letter position
-        swap.remove();
+    /**
+     * Returns k distinct positions of the list chosen uniformly at random, without replacement, using the algorithm
+     * of Floyd: it draws exactly k random numbers and keeps the chosen positions in an
+     * {@link IntOptimizedUnsortedList}, so it costs O(k) whatever the size of the list is
+     *
+     * @param k      the number of elements to return
+     * @param random the source of randomness
+     * @return the chosen elements, in no particular order
+     * @throws IllegalArgumentException if k is negative or greater than the size of the list
+     */
+    public List<T> sample(int k, Random random) {
+        int size = list.size();
+        if (k < 0 || k > size) {
+            throw new IllegalArgumentException("can't sample " + k + " elements out of " + size);
+        }
+        IntOptimizedUnsortedList chosen = new IntOptimizedUnsortedList();
+        List<T> sample = new ArrayList<>(k);
+        for (int j = size - k; j < size; j++) {
+            int position = random.nextInt(j + 1);
+            if (chosen.contains(position)) {
+                position = j;
+            }
+            chosen.add(position);
+            sample.add(list.get(position));
+        }
+        return sample;
+    }
 
-        if (swap != charIndexes) { //if the object to swap is the same than the removed
-            swap.add(charIndexes.peek()); //set the new position (THIS IS THE HEAVIEST OPERATION O(log n)
-            map.put(last, swap); // fix the object whe just modified position
-            charIndexes.remove(); //remove the deleted object from the indexes
+    /**
+     * Removes an element chosen uniformly at random. The last element is moved into its position, as
+     * {@link #remove(Object)} does, so it costs O(1)
+     *
+     * @param random the source of randomness
+     * @return the removed element
+     * @throws NoSuchElementException if the list is empty
+     */
+    public T pollRandom(Random random) {
+        if (list.isEmpty()) {
+            throw new NoSuchElementException();
         }
+        return removePosition(random.nextInt(list.size()));
+    }
 
-        list.remove(list.size() - 1); //delete last object as it has been copied
-        if (charIndexes.size() == 0) {
-            map.remove(o); //deleted the object in the map
+    /**
+     * Removes any element, the cheapest one to remove: the last one, which leaves no hole to fill
+     *
+     * @return the removed element
+     * @throws NoSuchElementException if the list is empty
+     */
+    public T pollAny() {
+        if (list.isEmpty()) {
+            throw new NoSuchElementException();
         }
+        return removeLast();
+    }
 
-        return true;
+    /**
+     * @param o the element to count
+     * @return the number of occurrences of the element, read from its index in O(1)
+     */
+    public int count(Object o) {
+        IndexPool pool = map.get(o);
+        return pool == null ? 0 : pool.size();
+    }
+
+    /**
+     * Removes up to n occurrences of an element
+     *
+     * @param o the element to remove
+     * @param n the maximum number of occurrences to remove
+     * @return the number of occurrences removed
+     */
+    public int removeAll(Object o, int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("can't remove " + n + " occurrences");
+        }
+        IndexPool pool = map.get(o);
+        if (pool == null) {
+            return 0;
+        }
+        int removed = Math.min(n, pool.size());
+        for (int i = 0; i < removed; i++) {
+            removeAt(pool.last(), pool, o);
+        }
+        return removed;
+    }
+
+    /**
+     * @return a view of the distinct elements of the list, backed by its index
+     */
+    public Set<T> distinctElements() {
+        return new AbstractSet<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return Collections.unmodifiableSet(map.keySet()).iterator();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return map.containsKey(o);
+            }
+
+            @Override
+            public int size() {
+                return map.size();
+            }
+        };
+    }
+
+    /**
+     * @return a view of the distinct elements of the list paired with their number of occurrences, backed by its
+     * index
+     */
+    public Set<Map.Entry<T, Integer>> entrySet() {
+        return new AbstractSet<Map.Entry<T, Integer>>() {
+            @Override
+            public Iterator<Map.Entry<T, Integer>> iterator() {
+                Iterator<Map.Entry<T, IndexPool>> entries = map.entrySet().iterator();
+                return new Iterator<Map.Entry<T, Integer>>() {
+                    @Override
+                    public boolean hasNext() {
+                        return entries.hasNext();
+                    }
+
+                    @Override
+                    public Map.Entry<T, Integer> next() {
+                        Map.Entry<T, IndexPool> entry = entries.next();
+                        return new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue().size());
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return map.size();
+            }
+        };
     }
 
 
@@ -73,11 +396,156 @@ public class OptimizedUnsortedList<T> implements Collection<T> {
 
     @Override
     public boolean contains(Object o) {
-        return list.contains(o);
+        return map.containsKey(o);
     }
+    /**
+     * @return an iterator whose remove method goes through the index: the last element is moved into the removed
+     * position, which is visited next
+     */
     @Override
     public Iterator<T> iterator() {
-        return list.iterator();
+        return new Iterator<T>() {
+            private int cursor;
+            private int lastReturned = -1;
+            private int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return cursor < list.size();
+            }
+
+            @Override
+            public T next() {
+                checkForComodification(expectedModCount);
+                if (cursor >= list.size()) {
+                    throw new NoSuchElementException();
+                }
+                lastReturned = cursor;
+                return list.get(cursor++);
+            }
+
+            @Override
+            public void remove() {
+                if (lastReturned < 0) {
+                    throw new IllegalStateException();
+                }
+                checkForComodification(expectedModCount);
+                removePosition(lastReturned);
+                cursor = lastReturned;
+                lastReturned = -1;
+                expectedModCount = modCount;
+            }
+        };
+    }
+
+    /**
+     * @return a spliterator over the positions of the list, which splits them in halves, so a parallel stream gets
+     * the same number of elements on every core
+     */
+    @Override
+    public Spliterator<T> spliterator() {
+        return new PositionSpliterator(0, list.size(), modCount);
+    }
+
+    /**
+     * Removes the elements that match the filter. The filter is tested on every element first, so the list doesn't
+     * change if it throws, and the matching positions are then freed from their pools and filled with the last kept
+     * elements in a single sweep, as {@link #removeAll(Collection)} does
+     *
+     * @return true if any element was removed
+     */
+    @Override
+    public boolean removeIf(Predicate<? super T> filter) {
+        Objects.requireNonNull(filter);
+        int expectedModCount = modCount;
+        int size = list.size();
+        BitSet dropped = new BitSet(size);
+        int removed = 0;
+        for (int i = 0; i < size; i++) {
+            if (filter.test(list.get(i))) {
+                dropped.set(i);
+                removed++;
+            }
+        }
+        checkForComodification(expectedModCount);
+        for (int position = dropped.nextSetBit(0); position >= 0; position = dropped.nextSetBit(position + 1)) {
+            T element = list.get(position);
+            removed(position);
+            IndexPool pool = map.get(element);
+            int moved = pool.removeSlot(slots[position]);
+            if (moved >= 0) {
+                slots[moved] = slots[position];
+            }
+            if (pool.size() == 0) {
+                map.remove(element);
+            }
+        }
+        compact(dropped, removed);
+        return removed > 0;
+    }
+
+    private void checkForComodification(int expectedModCount) {
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    /*
+     * Splits the positions [origin, fence) of the list. The list is dense, so every half holds exactly its number of
+     * positions
+     */
+    private final class PositionSpliterator implements Spliterator<T> {
+
+        private int origin;
+        private final int fence;
+        private final int expectedModCount;
+
+        PositionSpliterator(int origin, int fence, int expectedModCount) {
+            this.origin = origin;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            Objects.requireNonNull(action);
+            if (origin >= fence) {
+                return false;
+            }
+            checkForComodification(expectedModCount);
+            action.accept(list.get(origin++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            Objects.requireNonNull(action);
+            for (; origin < fence; origin++) {
+                action.accept(list.get(origin));
+            }
+            checkForComodification(expectedModCount);
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            int middle = (origin + fence) >>> 1;
+            if (middle <= origin) {
+                return null;
+            }
+            Spliterator<T> prefix = new PositionSpliterator(origin, middle, expectedModCount);
+            origin = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - origin;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
     }
 
     @Override
@@ -92,83 +560,301 @@ public class OptimizedUnsortedList<T> implements Collection<T> {
 
     @Override
     public boolean containsAll(Collection<?> c) {
-        return list.containsAll(c);
+        for (Object o : c) {
+            if (!map.containsKey(o)) {
+                return false;
+            }
+        }
+        return true;
     }
 
+    /**
+     * Adds all the elements of the collection, growing the list and its slots once for all of them. The elements are
+     * copied to an array first, so the capacity matches what is added even if the collection is this list
+     */
     @Override
+    @SuppressWarnings("unchecked")
     public boolean addAll(Collection<? extends T> c) {
-        boolean success = true;
-        for(T element: c){
-            success &= this.add(element);
+        Object[] elements = c.toArray();
+        int position = list.size();
+        ensureCapacity(position + elements.length);
+        modCount++;
+        for (Object element : elements) {
+            placing((T) element);
+            index((T) element, position);
+            list.add((T) element);
+            placed((T) element, position++);
         }
-        return success;
+        return elements.length > 0;
     }
 
+    /**
+     * Removes one occurrence of the list for every occurrence in the collection, as a multiset difference. The
+     * removed positions are marked first and then filled in a single sweep with the last kept elements, so only the
+     * moved elements touch the index
+     *
+     * @return true if the list changed
+     */
     @Override
     public boolean removeAll(Collection<?> c) {
-        boolean success = true;
-        for(Object o : c){
-            success &= this.remove(o);
+        BitSet dropped = new BitSet(list.size());
+        int removed = 0;
+        for (Map.Entry<?, Integer> occurrences : occurrences(c).entrySet()) {
+            IndexPool pool = map.get(occurrences.getKey());
+            if (pool != null) {
+                int count = Math.min(occurrences.getValue(), pool.size());
+                dropLast(pool, count, dropped);
+                if (pool.size() == 0) {
+                    map.remove(occurrences.getKey());
+                }
+                removed += count;
+            }
         }
-        return true;
+        compact(dropped, removed);
+        return removed > 0;
     }
 
+    /**
+     * Keeps every element as many times as it is in the collection, at most, as a multiset intersection. It marks
+     * and compacts the list as {@link #removeAll(Collection)} does
+     *
+     * @return true if the list changed
+     */
     @Override
     public boolean retainAll(Collection<?> c) {
-        ArrayList<T> list = new ArrayList();
-        for(Object o: c) {
-            if(contains(o)){
-                list.add((T) o);
+        Map<?, Integer> occurrences = occurrences(c);
+        BitSet dropped = new BitSet(list.size());
+        int removed = 0;
+        Iterator<Map.Entry<T, IndexPool>> entries = map.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<T, IndexPool> entry = entries.next();
+            IndexPool pool = entry.getValue();
+            int count = pool.size() - Math.min(pool.size(), occurrences.getOrDefault(entry.getKey(), 0));
+            dropLast(pool, count, dropped);
+            if (pool.size() == 0) {
+                entries.remove();
+            }
+            removed += count;
+        }
+        compact(dropped, removed);
+        return removed > 0;
+    }
+
+    /*
+     * Counts the occurrences of every element of the collection, read from the index if it is another list
+     */
+    private static Map<?, Integer> occurrences(Collection<?> c) {
+        Map<Object, Integer> occurrences = new HashMap<>();
+        if (c instanceof OptimizedUnsortedList<?>) {
+            for (Map.Entry<?, IndexPool> entry : ((OptimizedUnsortedList<?>) c).map.entrySet()) {
+                occurrences.put(entry.getKey(), entry.getValue().size());
+            }
+        } else {
+            for (Object o : c) {
+                occurrences.merge(o, 1, Integer::sum);
             }
         }
-        this.clear();
-        return this.addAll(list);
+        return occurrences;
     }
+
+    /*
+     * Frees the last count slots of the pool, marking their positions as dropped. Freeing the last slot never moves
+     * another one
+     */
+    private void dropLast(IndexPool pool, int count, BitSet dropped) {
+        for (int i = 0; i < count; i++) {
+            int position = pool.last();
+            removed(position);
+            dropped.set(position);
+            pool.removeSlot(pool.size() - 1);
+        }
+    }
+
+    /*
+     * Fills the dropped positions below the new size with the kept positions above it, walking both ends once, and
+     * truncates the list. The dropped elements must be already out of the index
+     */
+    private void compact(BitSet dropped, int removed) {
+        if (removed == 0) {
+            return;
+        }
+        int size = list.size();
+        int newSize = size - removed;
+        int tail = size - 1;
+        for (int hole = dropped.nextSetBit(0); hole >= 0 && hole < newSize; hole = dropped.nextSetBit(hole + 1)) {
+            tail = dropped.previousClearBit(tail);
+            T moved = list.get(tail);
+            list.set(hole, moved);
+            int slot = slots[tail];
+            map.get(moved).set(slot, hole);
+            slots[hole] = slot;
+            moved(tail, hole);
+            tail--;
+        }
+        list.subList(newSize, size).clear();
+        modCount++;
+        shrinkIfSparse();
+    }
+
     @Override
     public void clear() {
-        this.list = new ArrayList<>();
-        this.map = new HashMap<>();
+        cleared();
+        modCount++;
+        allocate();
+    }
+
+    /**
+     * Releases the spare room of the list: its arrays and the pools of positions are cut to their size and the map is
+     * rebuilt with the smallest table that holds its elements
+     */
+    public void trimToSize() {
+        resize(list.size());
+        for (IndexPool pool : map.values()) {
+            pool.trimToSize();
+        }
+        rebuildMap(mapCapacity(map.size()));
+    }
+
+    /*
+     * Shrinks the arrays down to twice the size of the list, and the map down to twice its keys, when they hold less
+     * than a quarter of what they can, but never below the capacities the list was created with. Halving the room at
+     * least once every shrink keeps the cost amortized O(1)
+     */
+    private void shrinkIfSparse() {
+        int size = list.size();
+        if (slots.length > Math.max(MIN_SHRINK_CAPACITY, minCapacity) && size < slots.length / SHRINK_RATIO) {
+            resize(Math.max(minCapacity, size * 2));
+        }
+        if (mapTableCapacity > Math.max(MIN_SHRINK_CAPACITY, powerOfTwoAtLeast(minMapCapacity))
+                && map.size() < mapTableCapacity / 4 * 3 / SHRINK_RATIO) {
+            rebuildMap(Math.max(minMapCapacity, mapCapacity(map.size())));
+        }
+    }
+
+    /*
+     * Moves the elements and the slots to arrays of the given length and lets the subclasses resize theirs
+     */
+    private void resize(int capacity) {
+        reallocate(capacity);
+        resized(capacity);
     }
 
+    /*
+     * Moves the elements to a new list created with the given capacity, so its length is known, and the slots to an
+     * array of the same length
+     */
+    private void reallocate(int capacity) {
+        slots = Arrays.copyOf(slots, capacity);
+        ArrayList<T> reallocated = new ArrayList<>(capacity);
+        reallocated.addAll(list);
+        list = reallocated;
+        listCapacity = capacity;
+    }
+
+    private void rebuildMap(int mapCapacity) {
+        HashMap<T, IndexPool> rebuilt = new HashMap<>(mapCapacity);
+        rebuilt.putAll(map);
+        map = rebuilt;
+        mapTableCapacity = powerOfTwoAtLeast(mapCapacity);
+    }
+
+    /**
+     * Estimates the bytes the list takes on a 64 bits JVM with compressed references: the list itself, the array of
+     * elements, the slots, the map with its table and entries, and the pools of positions. The elements are not
+     * counted, as they belong to the caller
+     *
+     * @return the estimated number of bytes
+     */
+    public long memoryFootprint() {
+        return LIST_BYTES + ARRAY_LIST_BYTES + arrayBytes(REFERENCE_BYTES, listCapacity)
+                + arrayBytes(Integer.BYTES, slots.length) + indexBytes(map, mapTableCapacity);
+    }
+
+    /*
+     * The size of a map of pools of positions: the map, its table, its entries and the pools
+     */
+    static long indexBytes(Map<?, IndexPool> map, int tableCapacity) {
+        long bytes = HASH_MAP_BYTES + arrayBytes(REFERENCE_BYTES, tableCapacity)
+                + (long) map.size() * (MAP_ENTRY_BYTES + INDEX_POOL_BYTES);
+        for (IndexPool pool : map.values()) {
+            bytes += arrayBytes(Integer.BYTES, pool.capacity());
+        }
+        return bytes;
+    }
+
+    /*
+     * The size of an array, aligned to 8 bytes as the objects are
+     */
+    static long arrayBytes(int elementBytes, int length) {
+        return (ARRAY_HEADER_BYTES + (long) elementBytes * length + 7) & ~7L;
+    }
+
+    /*
+     * The initial capacity of a HashMap that holds the given number of keys without resizing
+     */
+    static int mapCapacity(int keys) {
+        return Math.max(INITIAL_MAP_CAPACITY, (int) (keys / 0.75f) + 1);
+    }
+
+    /*
+     * The length of the table that a HashMap created with the given capacity allocates
+     */
+    static int powerOfTwoAtLeast(int capacity) {
+        return capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    /**
+     * Compares the lists as multisets: they are equal if they hold the same elements the same number of times, in any
+     * order. The counts are read from the indexes of both lists, so the cost is O(distinct elements)
+     */
     @Override
     public boolean equals(Object o) {
-        // Creates a second list and deletes the elements one by one, when finished, if the elements
-        // didn't match or if the list contains more than the original, they weren't equals. The
-        // cost in the worst case scenario is O(2n)
-        if(o instanceof OptimizedUnsortedList<?>) {
-            OptimizedUnsortedList other =((OptimizedUnsortedList) o).clone();
-
-            Iterator it = this.iterator();
-
-            while(it.hasNext()) {
-                Object next = it.next();
-                if(other.contains(next)){
-                    other.remove(next);
-                } else {
-                    return false;
-                }
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof OptimizedUnsortedList<?>)) {
+            return false;
+        }
+        OptimizedUnsortedList<?> other = (OptimizedUnsortedList<?>) o;
+        if (list.size() != other.list.size() || map.size() != other.map.size()) {
+            return false;
+        }
+        for (Map.Entry<T, IndexPool> entry : map.entrySet()) {
+            if (other.count(entry.getKey()) != entry.getValue().size()) {
+                return false;
             }
-            return other.isEmpty();
         }
-        return false;
+        return true;
     }
 
-    public OptimizedUnsortedList clone() {
-        OptimizedUnsortedList<T> clone = new OptimizedUnsortedList<>();
-        Iterator it = this.iterator();
-
-        while (it.hasNext()){
-            clone.add((T) it.next());
+    /**
+     * Copies the list, its index and its slots directly, so no element is hashed again
+     */
+    public OptimizedUnsortedList<T> clone() {
+        int mapCapacity = mapCapacity(this.map.size());
+        HashMap<T, IndexPool> map = new HashMap<>(mapCapacity);
+        for (Map.Entry<T, IndexPool> entry : this.map.entrySet()) {
+            map.put(entry.getKey(), entry.getValue().copy());
         }
-        return clone;
+        int capacity = Math.max(INITIAL_CAPACITY, list.size());
+        ArrayList<T> list = new ArrayList<>(capacity);
+        list.addAll(this.list);
+        return new OptimizedUnsortedList<>(list, map, powerOfTwoAtLeast(mapCapacity), Arrays.copyOf(slots, capacity),
+                minCapacity, minMapCapacity);
     }
 
 
+    /**
+     * The sum over the distinct elements of the hash of the element xor its count, so it doesn't depend on the order
+     * and agrees with {@link #equals(Object)}
+     */
     @Override
     public int hashCode() {
-        List<T> list = (List<T>) this.list.clone();
-        Collections.sort(list, Collections.reverseOrder());
-        return list.hashCode();
+        int hash = 0;
+        for (Map.Entry<T, IndexPool> entry : map.entrySet()) {
+            hash += Objects.hashCode(entry.getKey()) ^ entry.getValue().size();
+        }
+        return hash;
     }
 }
 
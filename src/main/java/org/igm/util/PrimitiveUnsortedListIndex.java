@@ -0,0 +1,265 @@
+package org.igm.util;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * This class keeps the index of the primitive unsorted lists, {@link IntOptimizedUnsortedList},
+ * {@link LongOptimizedUnsortedList} and {@link CharOptimizedUnsortedList}, which only differ in the type of the array
+ * their elements are stored in. The positions holding the same value are chained in a doubly linked list made of
+ * two int arrays, next and prev, and an open addressed table with linear probing keeps the position of the head of
+ * every chain. The table stores positions, not values, so it compares and hashes the values through the list that
+ * owns it. That way there is no object per element nor per distinct value: an element costs its value, the two
+ * links and its share of the table.
+ * <p>
+ * Removing a position unlinks it from its chain and moves the last element of the list into it, relinking the moved
+ * position, so the elements are kept dense in O(1) as {@link OptimizedUnsortedList} does.
+ */
+abstract class PrimitiveUnsortedListIndex {
+
+    static final int NONE = -1;
+
+    static final int INITIAL_CAPACITY = 10;
+    private static final int INITIAL_TABLE_CAPACITY = 16;
+
+    int size;
+    private int[] next;
+    private int[] prev;
+    // the position of the head of the chain of every value, NONE if the slot is free
+    int[] heads;
+    private int distinct;
+
+    PrimitiveUnsortedListIndex() {
+        next = new int[INITIAL_CAPACITY];
+        prev = new int[INITIAL_CAPACITY];
+        heads = newTable(INITIAL_TABLE_CAPACITY);
+    }
+
+    /**
+     * @return the mixed hash of the value stored in the given position
+     */
+    abstract int hashAt(int position);
+
+    /**
+     * Copies the value stored in one position into another one
+     */
+    abstract void copy(int from, int to);
+
+    /**
+     * Resizes the array of values to the given capacity
+     */
+    abstract void resize(int capacity);
+
+    /**
+     * @return the number of values the array can hold
+     */
+    abstract int capacity();
+
+    /**
+     * Writes the first values of the array to a snapshot
+     */
+    abstract void writeElements(SnapshotBuffer out, int length) throws IOException;
+
+    /**
+     * Reads the first values of the array from a snapshot, the array has already room for them
+     */
+    abstract void readElements(SnapshotBuffer in, int length) throws IOException;
+
+    /**
+     * Makes room for one more element, so that the caller can store the value at position {@link #size}
+     */
+    final void ensureRoomForOneMore() {
+        if (size == capacity()) {
+            int capacity = size + (size >> 1) + 1;
+            resize(capacity);
+            next = Arrays.copyOf(next, capacity);
+            prev = Arrays.copyOf(prev, capacity);
+        }
+    }
+
+    /**
+     * Links the value stored at position {@link #size}, which becomes part of the list
+     *
+     * @param slot the slot returned by the lookup of the value: the slot of its chain or the free slot where the
+     *             chain has to be created
+     */
+    final void linkLast(int slot) {
+        int position = size++;
+        prev[position] = NONE;
+        int head = heads[slot];
+        if (head == NONE) {
+            next[position] = NONE;
+            heads[slot] = position;
+            if (++distinct * 4 > heads.length * 3) {
+                rehash(heads.length * 2);
+            }
+        } else {
+            next[position] = head;
+            prev[head] = position;
+            heads[slot] = position;
+        }
+    }
+
+    /**
+     * Removes the element stored in the given position, filling it with the last element of the list
+     */
+    final void removeAt(int position) {
+        unlink(position);
+        int last = size - 1;
+        if (position != last) {
+            copy(last, position);
+            int before = prev[last];
+            int after = next[last];
+            if (before == NONE) {
+                heads[slotOfHead(last)] = position;
+            } else {
+                next[before] = position;
+            }
+            if (after != NONE) {
+                prev[after] = position;
+            }
+            prev[position] = before;
+            next[position] = after;
+        }
+        size--;
+    }
+
+    /**
+     * @return the number of distinct values in the list
+     */
+    final int distinct() {
+        return distinct;
+    }
+
+    /**
+     * Writes the list to a snapshot as it is: its size, its elements and the arrays of its index
+     */
+    final void write(SnapshotBuffer out) throws IOException {
+        out.putInt(size);
+        out.putInt(distinct);
+        out.putInt(heads.length);
+        writeElements(out, size);
+        out.putInts(next, size);
+        out.putInts(prev, size);
+        out.putInts(heads, heads.length);
+    }
+
+    /**
+     * Replaces the list with the one of a snapshot written by {@link #write(SnapshotBuffer)}. The index is read back
+     * as it was written, so no value is hashed
+     */
+    final void read(SnapshotBuffer in) throws IOException {
+        int size = in.getInt();
+        int distinct = in.getInt();
+        int tableCapacity = in.getInt();
+        if (size < 0 || distinct < 0 || distinct > size || tableCapacity < INITIAL_TABLE_CAPACITY
+                || Integer.bitCount(tableCapacity) != 1 || distinct >= tableCapacity) {
+            throw new IOException("corrupted snapshot: " + size + " elements, " + distinct + " distinct, "
+                    + tableCapacity + " slots");
+        }
+        int capacity = Math.max(INITIAL_CAPACITY, size);
+        resize(capacity);
+        readElements(in, size);
+        next = new int[capacity];
+        prev = new int[capacity];
+        heads = new int[tableCapacity];
+        in.getInts(next, size);
+        in.getInts(prev, size);
+        in.getInts(heads, tableCapacity);
+        this.size = size;
+        this.distinct = distinct;
+    }
+
+    /**
+     * Empties the list and its index, dropping the arrays grown beyond the initial capacity
+     */
+    void clear() {
+        size = 0;
+        distinct = 0;
+        next = new int[INITIAL_CAPACITY];
+        prev = new int[INITIAL_CAPACITY];
+        heads = newTable(INITIAL_TABLE_CAPACITY);
+    }
+
+    private void unlink(int position) {
+        int before = prev[position];
+        int after = next[position];
+        if (before == NONE) {
+            int slot = slotOfHead(position);
+            if (after == NONE) {
+                deleteSlot(slot);
+                distinct--;
+            } else {
+                heads[slot] = after;
+                prev[after] = NONE;
+            }
+        } else {
+            next[before] = after;
+            if (after != NONE) {
+                prev[after] = before;
+            }
+        }
+    }
+
+    /*
+     * Returns the slot of the table that points to the given position, which must be the head of its chain
+     */
+    private int slotOfHead(int position) {
+        int mask = heads.length - 1;
+        int slot = hashAt(position) & mask;
+        while (heads[slot] != position) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /*
+     * Frees a slot shifting back the entries that would not be found otherwise, so that the probing never needs
+     * tombstones
+     */
+    private void deleteSlot(int slot) {
+        int mask = heads.length - 1;
+        int free = slot;
+        int current = slot;
+        while (true) {
+            current = (current + 1) & mask;
+            int head = heads[current];
+            if (head == NONE) {
+                heads[free] = NONE;
+                return;
+            }
+            int home = hashAt(head) & mask;
+            // the entry can fill the free slot if its home is not in the cyclic range (free, current]
+            if (free <= current ? (home <= free || home > current) : (home <= free && home > current)) {
+                heads[free] = head;
+                free = current;
+            }
+        }
+    }
+
+    private void rehash(int tableCapacity) {
+        int[] oldHeads = heads;
+        heads = newTable(tableCapacity);
+        int mask = tableCapacity - 1;
+        for (int head : oldHeads) {
+            if (head != NONE) {
+                int slot = hashAt(head) & mask;
+                while (heads[slot] != NONE) {
+                    slot = (slot + 1) & mask;
+                }
+                heads[slot] = head;
+            }
+        }
+    }
+
+    private static int[] newTable(int capacity) {
+        int[] table = new int[capacity];
+        Arrays.fill(table, NONE);
+        return table;
+    }
+
+    static int mix(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
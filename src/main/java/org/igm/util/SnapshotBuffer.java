@@ -0,0 +1,147 @@
+package org.igm.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * This class reads or writes a snapshot sequentially through a {@link FileChannel}, staging the bytes in one direct
+ * buffer. The primitive arrays are copied in bulk through views of the buffer, so writing the index of a list costs
+ * one copy per buffer of ints and not one call per int.
+ */
+final class SnapshotBuffer {
+
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private final FileChannel channel;
+    private ByteBuffer buffer;
+
+    private SnapshotBuffer(FileChannel channel, ByteBuffer buffer) {
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    static SnapshotBuffer writer(FileChannel channel) {
+        return new SnapshotBuffer(channel, ByteBuffer.allocateDirect(BUFFER_BYTES));
+    }
+
+    static SnapshotBuffer reader(FileChannel channel) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        buffer.limit(0);
+        return new SnapshotBuffer(channel, buffer);
+    }
+
+    /**
+     * @return the buffer, with room for the given number of bytes at its position
+     */
+    ByteBuffer reserve(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+            if (buffer.capacity() < bytes) {
+                buffer = ByteBuffer.allocateDirect(bytes);
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * @return the buffer, with the given number of bytes to read at its position
+     */
+    ByteBuffer require(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            if (buffer.capacity() < bytes) {
+                buffer = ByteBuffer.allocateDirect(bytes).put(buffer).flip();
+            }
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("the snapshot is truncated");
+                }
+            }
+            buffer.flip();
+        }
+        return buffer;
+    }
+
+    void putByte(byte value) throws IOException {
+        reserve(1).put(value);
+    }
+
+    void putInt(int value) throws IOException {
+        reserve(Integer.BYTES).putInt(value);
+    }
+
+    void putInts(int[] values, int length) throws IOException {
+        for (int offset = 0; offset < length; ) {
+            int count = Math.min(length - offset, reserve(Integer.BYTES).remaining() / Integer.BYTES);
+            buffer.asIntBuffer().put(values, offset, count);
+            buffer.position(buffer.position() + count * Integer.BYTES);
+            offset += count;
+        }
+    }
+
+    void putLongs(long[] values, int length) throws IOException {
+        for (int offset = 0; offset < length; ) {
+            int count = Math.min(length - offset, reserve(Long.BYTES).remaining() / Long.BYTES);
+            buffer.asLongBuffer().put(values, offset, count);
+            buffer.position(buffer.position() + count * Long.BYTES);
+            offset += count;
+        }
+    }
+
+    void putChars(char[] values, int length) throws IOException {
+        for (int offset = 0; offset < length; ) {
+            int count = Math.min(length - offset, reserve(Character.BYTES).remaining() / Character.BYTES);
+            buffer.asCharBuffer().put(values, offset, count);
+            buffer.position(buffer.position() + count * Character.BYTES);
+            offset += count;
+        }
+    }
+
+    byte getByte() throws IOException {
+        return require(1).get();
+    }
+
+    int getInt() throws IOException {
+        return require(Integer.BYTES).getInt();
+    }
+
+    void getInts(int[] values, int length) throws IOException {
+        for (int offset = 0; offset < length; ) {
+            int count = Math.min(length - offset, Math.max(1, buffer.remaining() / Integer.BYTES));
+            require(count * Integer.BYTES).asIntBuffer().get(values, offset, count);
+            buffer.position(buffer.position() + count * Integer.BYTES);
+            offset += count;
+        }
+    }
+
+    void getLongs(long[] values, int length) throws IOException {
+        for (int offset = 0; offset < length; ) {
+            int count = Math.min(length - offset, Math.max(1, buffer.remaining() / Long.BYTES));
+            require(count * Long.BYTES).asLongBuffer().get(values, offset, count);
+            buffer.position(buffer.position() + count * Long.BYTES);
+            offset += count;
+        }
+    }
+
+    void getChars(char[] values, int length) throws IOException {
+        for (int offset = 0; offset < length; ) {
+            int count = Math.min(length - offset, Math.max(1, buffer.remaining() / Character.BYTES));
+            require(count * Character.BYTES).asCharBuffer().get(values, offset, count);
+            buffer.position(buffer.position() + count * Character.BYTES);
+            offset += count;
+        }
+    }
+
+    /**
+     * Writes the staged bytes to the channel
+     */
+    void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,350 @@
+package org.igm.util;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class parses numbers written in spanish words back to numbers, so it's the inverse of
+ * {@link NumberToSpanishWords#convert(String)}: "menos mil doscientos treinta y uno con cero
+ * cinco" is parsed as -1231.05. The vocabulary is the one of NumberToSpanishWords, plus the final
+ * forms "uno" and "veintiuno" and the singular powers "millón", "billón" and so on. The words can
+ * be written in any case and with or without accents, and are separated by any amount of white
+ * space.
+ * <p>
+ * The words are read in a single pass, char by char, walking a trie that is built once from the
+ * vocabulary, so no intermediate String is created. The decimal part, after "con", is read as
+ * hundredths: "con cincuenta" is .50 and "con cero cinco" is .05.
+ */
+public final class SpanishWordsToNumber {
+
+  private static final String AND = "y";
+  private static final String ONE_SUFFIX = "o";
+  private static final int ALPHABET = 'z' - 'a' + 1;
+
+  // the kind of a token is kept in the high bits of its code and its value in the low ones
+  private static final int KIND_SHIFT = 24;
+  private static final int VALUE_MASK = (1 << KIND_SHIFT) - 1;
+  private static final int UNIT = 1;
+  private static final int TENS = 2;
+  private static final int HUNDREDS = 3;
+  private static final int HUNDRED_ALONE = 4;
+  private static final int CONJUNCTION_AND = 5;
+  private static final int THOUSAND = 6;
+  // the value is the power of one million
+  private static final int POWER = 7;
+  private static final int ZERO = 8;
+  private static final int MINUS = 9;
+  private static final int DECIMALS = 10;
+
+  // the state of the words below one thousand
+  private static final int EMPTY = 0;
+  private static final int AFTER_HUNDREDS = 1;
+  private static final int AFTER_TENS = 2;
+  private static final int AFTER_AND = 3;
+  private static final int COMPLETE = 4;
+
+  // the greatest power of one million whose multiples fit in a long
+  private static final int MAX_LONG_POWER = 2;
+  private static final long ONE_MILLION = 1_000_000L;
+
+  private static final int MAX_POWER = NumberToSpanishWords.POWER_NAMES.length / 2;
+
+  // the trie: ALPHABET children per node, 0 meaning no child as the root is never a child
+  private static final int[] CHILDREN;
+  // the token of the word ending at every node, 0 if no word ends there
+  private static final int[] TOKENS;
+
+  static {
+    final Map<String, Integer> vocabulary = vocabulary();
+    int maxNodes = 1;
+    for (String word : vocabulary.keySet()) {
+      maxNodes += word.length();
+    }
+    CHILDREN = new int[maxNodes * ALPHABET];
+    TOKENS = new int[maxNodes];
+    int nodes = 1;
+    for (Map.Entry<String, Integer> entry : vocabulary.entrySet()) {
+      int node = 0;
+      for (int i = 0; i < entry.getKey().length(); i++) {
+        final int child = node * ALPHABET + fold(entry.getKey().charAt(i)) - 'a';
+        if (CHILDREN[child] == 0) {
+          CHILDREN[child] = nodes++;
+        }
+        node = CHILDREN[child];
+      }
+      TOKENS[node] = entry.getValue();
+    }
+  }
+
+  private SpanishWordsToNumber() {
+  }
+
+  /*
+   * Every word with its token. The first meaning of a word is kept, so diez is a unit and not a
+   * ten
+   */
+  private static Map<String, Integer> vocabulary() {
+    final Map<String, Integer> vocabulary = new LinkedHashMap<>();
+    for (int i = 1; i < NumberToSpanishWords.NUM_NAMES.length; i++) {
+      final String name = NumberToSpanishWords.NUM_NAMES[i];
+      register(vocabulary, name, UNIT, i);
+      if (i % 10 == 1 && i != 11) {
+        register(vocabulary, name + ONE_SUFFIX, UNIT, i);
+      }
+    }
+    for (int i = 1; i < NumberToSpanishWords.TENS_NAMES.length; i++) {
+      final int value = i * 10;
+      // diez, veinte and ciento are named elsewhere
+      if (value >= NumberToSpanishWords.NUM_NAMES.length && value < 100) {
+        register(vocabulary, NumberToSpanishWords.TENS_NAMES[i], TENS, value);
+      }
+    }
+    for (int i = 1; i < NumberToSpanishWords.HUNDREDS_NAMES.length; i++) {
+      register(vocabulary, NumberToSpanishWords.HUNDREDS_NAMES[i], HUNDREDS, i * 100);
+    }
+    register(vocabulary, NumberToSpanishWords.ONE_HUNDRED_ALONE, HUNDRED_ALONE, 100);
+    register(vocabulary, AND, CONJUNCTION_AND, 0);
+    register(vocabulary, NumberToSpanishWords.ZERO, ZERO, 0);
+    register(vocabulary, NumberToSpanishWords.MINUS, MINUS, 0);
+    register(vocabulary, NumberToSpanishWords.CONJUNCTION.trim(), DECIMALS, 0);
+    register(vocabulary, NumberToSpanishWords.POWER_NAMES[0], THOUSAND, 1000);
+    // the odd positions hold the powers of one million, the even ones are thousands of them
+    for (int i = 1; i < NumberToSpanishWords.POWER_NAMES.length; i += 2) {
+      final String singular = NumberToSpanishWords.SINGLE_POWER_NAMES[i];
+      register(vocabulary, NumberToSpanishWords.POWER_NAMES[i], POWER, (i + 1) / 2);
+      register(vocabulary, singular.substring(singular.lastIndexOf(' ') + 1), POWER,
+          (i + 1) / 2);
+    }
+    return vocabulary;
+  }
+
+  /**
+   * This method parses a number written in spanish words
+   *
+   * @param _words the words of the number
+   * @return the number, with a scale of 2 if it has a decimal part and 0 otherwise
+   * @throws NumberFormatException if the words are not a number
+   */
+  public static BigDecimal parse(final CharSequence _words) {
+    final long[] powers = new long[MAX_POWER + 1];
+    int lastPower = MAX_POWER + 1;
+    boolean isNegative = false;
+    boolean isZero = false;
+    boolean inDecimals = false;
+    boolean decimalZero = false;
+    boolean anyWord = false;
+    // the words since the last power of one million: thousands * 1000 + small
+    int thousands = -1;
+    int small = 0;
+    int state = EMPTY;
+
+    final int length = _words.length();
+    int i = 0;
+    while (true) {
+      while (i < length && Character.isWhitespace(_words.charAt(i))) {
+        i++;
+      }
+      if (i == length) {
+        break;
+      }
+      final int start = i;
+      int node = 0;
+      while (i < length && !Character.isWhitespace(_words.charAt(i))) {
+        final int letter = fold(_words.charAt(i)) - 'a';
+        node = letter >= 0 && letter < ALPHABET ? CHILDREN[node * ALPHABET + letter] : 0;
+        if (node == 0) {
+          throw unexpected(_words, start);
+        }
+        i++;
+      }
+      final int token = TOKENS[node];
+      if (token == 0) {
+        throw unexpected(_words, start);
+      }
+      final int kind = token >>> KIND_SHIFT;
+      final int value = token & VALUE_MASK;
+
+      // the order of the words that aren't part of a number below one thousand
+      if (isZero && !inDecimals && kind != DECIMALS) {
+        throw unexpected(_words, start);
+      }
+      if (inDecimals && kind != UNIT && kind != TENS && kind != CONJUNCTION_AND
+          && (kind != ZERO || anyWord || decimalZero)) {
+        throw unexpected(_words, start);
+      }
+
+      switch (kind) {
+        case MINUS:
+          if (anyWord || isNegative) {
+            throw unexpected(_words, start);
+          }
+          isNegative = true;
+          continue;
+        case ZERO:
+          if (inDecimals) {
+            decimalZero = true;
+          } else if (anyWord) {
+            throw unexpected(_words, start);
+          } else {
+            isZero = true;
+            anyWord = true;
+          }
+          continue;
+        case DECIMALS:
+          if (!anyWord || inDecimals || state == AFTER_AND) {
+            throw unexpected(_words, start);
+          }
+          powers[0] = thousands < 0 ? small : thousands * 1000L + small;
+          inDecimals = true;
+          anyWord = false;
+          thousands = -1;
+          small = 0;
+          state = EMPTY;
+          continue;
+        case THOUSAND:
+          if (thousands >= 0 || state == AFTER_AND) {
+            throw unexpected(_words, start);
+          }
+          thousands = state == EMPTY ? 1 : small;
+          small = 0;
+          state = EMPTY;
+          anyWord = true;
+          continue;
+        case POWER:
+          if (value >= lastPower || state == AFTER_AND || (thousands < 0 && state == EMPTY)) {
+            throw unexpected(_words, start);
+          }
+          powers[value] = thousands < 0 ? small : thousands * 1000L + small;
+          lastPower = value;
+          thousands = -1;
+          small = 0;
+          state = EMPTY;
+          anyWord = true;
+          continue;
+        default:
+          state = nextState(state, kind, value, _words, start);
+          small = kind == CONJUNCTION_AND ? small : small + value;
+          anyWord = true;
+      }
+    }
+
+    if (!anyWord && !inDecimals || state == AFTER_AND
+        || inDecimals && (state == EMPTY || decimalZero && small >= 10)) {
+      throw new NumberFormatException("the words are not a complete number: " + _words);
+    }
+
+    if (inDecimals) {
+      return build(isNegative, powers).add(BigDecimal.valueOf(isNegative ? -small : small, 2));
+    }
+    powers[0] = thousands < 0 ? small : thousands * 1000L + small;
+    return build(isNegative, powers);
+  }
+
+  /*
+   * The words below one thousand: [hundreds] [tens [y unit] | unit], or cien alone
+   */
+  private static int nextState(final int state, final int kind, final int value,
+      final CharSequence _words, final int start) {
+    switch (kind) {
+      case HUNDREDS:
+        if (state == EMPTY) {
+          return AFTER_HUNDREDS;
+        }
+        break;
+      case HUNDRED_ALONE:
+        if (state == EMPTY) {
+          return COMPLETE;
+        }
+        break;
+      case TENS:
+        if (state == EMPTY || state == AFTER_HUNDREDS) {
+          return AFTER_TENS;
+        }
+        break;
+      case CONJUNCTION_AND:
+        if (state == AFTER_TENS) {
+          return AFTER_AND;
+        }
+        break;
+      case UNIT:
+        if (state == EMPTY || state == AFTER_HUNDREDS || state == AFTER_AND && value < 10) {
+          return COMPLETE;
+        }
+        break;
+      default:
+    }
+    throw unexpected(_words, start);
+  }
+
+  /*
+   * Every position of powers holds the multiple of a power of one million, below one million
+   */
+  private static BigDecimal build(final boolean isNegative, final long[] powers) {
+    int highestPower = MAX_POWER;
+    while (highestPower > 0 && powers[highestPower] == 0) {
+      highestPower--;
+    }
+    final BigDecimal number;
+    if (highestPower <= MAX_LONG_POWER) {
+      long value = 0;
+      for (int power = MAX_LONG_POWER; power >= 0; power--) {
+        value = value * ONE_MILLION + powers[power];
+      }
+      number = BigDecimal.valueOf(value);
+    } else {
+      BigInteger value = BigInteger.ZERO;
+      final BigInteger oneMillion = BigInteger.valueOf(ONE_MILLION);
+      for (int power = MAX_POWER; power >= 0; power--) {
+        value = value.multiply(oneMillion).add(BigInteger.valueOf(powers[power]));
+      }
+      number = new BigDecimal(value);
+    }
+    return isNegative ? number.negate() : number;
+  }
+
+  /*
+   * Lowercases the ASCII letters and removes the accents of the spanish vowels
+   */
+  private static char fold(final char c) {
+    if (c >= 'A' && c <= 'Z') {
+      return (char) (c + ('a' - 'A'));
+    }
+    switch (c) {
+      case 'á':
+      case 'Á':
+        return 'a';
+      case 'é':
+      case 'É':
+        return 'e';
+      case 'í':
+      case 'Í':
+        return 'i';
+      case 'ó':
+      case 'Ó':
+        return 'o';
+      case 'ú':
+      case 'Ú':
+      case 'ü':
+      case 'Ü':
+        return 'u';
+      default:
+        return c;
+    }
+  }
+
+  private static NumberFormatException unexpected(final CharSequence _words, final int start) {
+    int end = start;
+    while (end < _words.length() && !Character.isWhitespace(_words.charAt(end))) {
+      end++;
+    }
+    return new NumberFormatException("unexpected word \"" + _words.subSequence(start, end)
+        + "\" at position " + start + " of: " + _words);
+  }
+
+  private static void register(final Map<String, Integer> vocabulary, final String word,
+      final int kind, final int value) {
+    vocabulary.putIfAbsent(word, kind << KIND_SHIFT | value);
+  }
+}
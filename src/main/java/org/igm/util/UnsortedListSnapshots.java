@@ -0,0 +1,179 @@
+package org.igm.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Supplier;
+
+/**
+ * This class writes the unsorted lists to snapshot files and reads them back. A snapshot is written sequentially
+ * through a {@link FileChannel} into a temporary file that replaces the previous snapshot once it is complete and
+ * forced to disk, so a crash while checkpointing never leaves a half written snapshot behind.
+ * <p>
+ * Every snapshot starts with a header: a magic number, the version of the format and the kind of list. Then:
+ * <ul>
+ *     <li>{@link OptimizedUnsortedList}: the fixed size of the {@link ElementCodec}, the size and the number of
+ *     distinct elements, and the elements in the order of the list, every one preceded by its length if the codec
+ *     has no fixed size. The list is loaded in one pass, sized from the start so that neither the list nor its map
+ *     ever grow; the objects are hashed once each, as their hash codes are not guaranteed to survive a restart.</li>
+ *     <li>{@link IntOptimizedUnsortedList}, {@link LongOptimizedUnsortedList} and {@link CharOptimizedUnsortedList}:
+ *     the size, the number of distinct values, the capacity of the table, and the arrays of the elements and the
+ *     index. They are read back in bulk as they were written, without hashing any value.</li>
+ * </ul>
+ * The numbers are written big endian.
+ */
+public final class UnsortedListSnapshots {
+
+    private static final int MAGIC = 0x4F554C53;
+    private static final int VERSION = 1;
+    private static final byte OBJECTS = 0;
+    private static final byte INTS = 1;
+    private static final byte LONGS = 2;
+    private static final byte CHARS = 3;
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private UnsortedListSnapshots() {
+    }
+
+    private interface Body {
+        void transfer(SnapshotBuffer buffer) throws IOException;
+    }
+
+    /**
+     * Writes a snapshot of the list
+     *
+     * @param list  the list to write
+     * @param codec the codec of its elements
+     * @param file  the snapshot file, replaced if it exists
+     * @throws IOException if the snapshot can't be written
+     */
+    public static <T> void write(OptimizedUnsortedList<T> list, ElementCodec<? super T> codec, Path file)
+            throws IOException {
+        write(file, OBJECTS, out -> {
+            int fixedSize = codec.fixedSize();
+            out.putInt(fixedSize);
+            out.putInt(list.size());
+            out.putInt(list.distinctElements().size());
+            for (T element : list) {
+                int size = fixedSize == ElementCodec.VARIABLE_SIZE ? codec.encodedSize(element) : fixedSize;
+                ByteBuffer buffer = out.reserve(Integer.BYTES + size);
+                if (fixedSize == ElementCodec.VARIABLE_SIZE) {
+                    buffer.putInt(size);
+                }
+                int start = buffer.position();
+                codec.encode(element, buffer);
+                if (buffer.position() - start != size) {
+                    throw new IllegalStateException("the codec wrote " + (buffer.position() - start)
+                            + " bytes for an element of " + size + ": " + element);
+                }
+            }
+        });
+    }
+
+    /**
+     * Reads a snapshot written by {@link #write(OptimizedUnsortedList, ElementCodec, Path)}
+     *
+     * @param file  the snapshot file
+     * @param codec the codec the snapshot was written with
+     * @return the list
+     * @throws IOException if the snapshot can't be read or is not a snapshot of this kind
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static <T> OptimizedUnsortedList<T> read(Path file, ElementCodec<T> codec) throws IOException {
+        OptimizedUnsortedList<T>[] list = new OptimizedUnsortedList[1];
+        read(file, OBJECTS, in -> {
+            int fixedSize = in.getInt();
+            if (fixedSize != codec.fixedSize()) {
+                throw new IOException("the snapshot was written by a codec of size " + fixedSize + ": " + file);
+            }
+            int size = in.getInt();
+            int distinct = in.getInt();
+            if (size < 0 || distinct < 0 || distinct > size) {
+                throw new IOException("corrupted snapshot: " + size + " elements, " + distinct + " distinct");
+            }
+            list[0] = new OptimizedUnsortedList<>(size, distinct);
+            for (int i = 0; i < size; i++) {
+                int elementSize = fixedSize == ElementCodec.VARIABLE_SIZE ? in.getInt() : fixedSize;
+                if (elementSize < 0) {
+                    throw new IOException("corrupted snapshot: an element of " + elementSize + " bytes");
+                }
+                ByteBuffer buffer = in.require(elementSize);
+                int limit = buffer.limit();
+                int end = buffer.position() + elementSize;
+                buffer.limit(end);
+                list[0].add(codec.decode(buffer));
+                buffer.limit(limit).position(end);
+            }
+        });
+        return list[0];
+    }
+
+    public static void write(IntOptimizedUnsortedList list, Path file) throws IOException {
+        write(file, INTS, list::write);
+    }
+
+    public static IntOptimizedUnsortedList readInts(Path file) throws IOException {
+        return readPrimitive(file, INTS, IntOptimizedUnsortedList::new);
+    }
+
+    public static void write(LongOptimizedUnsortedList list, Path file) throws IOException {
+        write(file, LONGS, list::write);
+    }
+
+    public static LongOptimizedUnsortedList readLongs(Path file) throws IOException {
+        return readPrimitive(file, LONGS, LongOptimizedUnsortedList::new);
+    }
+
+    public static void write(CharOptimizedUnsortedList list, Path file) throws IOException {
+        write(file, CHARS, list::write);
+    }
+
+    public static CharOptimizedUnsortedList readChars(Path file) throws IOException {
+        return readPrimitive(file, CHARS, CharOptimizedUnsortedList::new);
+    }
+
+    private static <L extends PrimitiveUnsortedListIndex> L readPrimitive(Path file, byte kind, Supplier<L> factory)
+            throws IOException {
+        L list = factory.get();
+        read(file, kind, list::read);
+        return list;
+    }
+
+    private static void write(Path file, byte kind, Body body) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + TEMPORARY_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            SnapshotBuffer out = SnapshotBuffer.writer(channel);
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+            out.putByte(kind);
+            body.transfer(out);
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void read(Path file, byte kind, Body body) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            SnapshotBuffer in = SnapshotBuffer.reader(channel);
+            if (in.getInt() != MAGIC) {
+                throw new IOException("not a snapshot: " + file);
+            }
+            int version = in.getInt();
+            if (version != VERSION) {
+                throw new IOException("unsupported snapshot version " + version + ": " + file);
+            }
+            byte actualKind = in.getByte();
+            if (actualKind != kind) {
+                throw new IOException("the snapshot holds a list of kind " + actualKind + ", not " + kind + ": "
+                        + file);
+            }
+            body.transfer(in);
+        }
+    }
+}
@@ -2,15 +2,192 @@ package org.igm.util;
 
 import org.igm.util.AnagramChecker;
 import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 public class AnagramCheckerTest {
 
+    private static final String LETTERS = "aábcçdeéfgiíñoóuüAÁBÇEÉÑOÓ019 .,-*ßæøΣσжщ日本語😀";
+
      @Test
     public void anagramTest() {
         assertTrue(AnagramChecker.getInstance().consideringPunctuation(false).isAnagram("asdfghj  klñ", "ñlkj  h g fds, . a"));
         assertFalse(AnagramChecker.getInstance().consideringPunctuation(true).isAnagram("asdfghj  klñ", "ñlkj  h g fds, . a"));
 
     }
+
+    @Test
+    public void cachedInstancesTest() {
+        AnagramChecker checker = AnagramChecker.getInstance();
+
+        assertSame(checker, AnagramChecker.getInstance());
+        assertSame(checker, checker.consideringPunctuation(true));
+        assertNotSame(checker, checker.consideringPunctuation(false));
+        assertSame(checker.consideringPunctuation(false), AnagramChecker.getInstance().consideringPunctuation(false));
+        assertSame(checker, checker.usingReferenceAlgorithm(true).consideringPunctuation(false)
+                .usingReferenceAlgorithm(false).consideringPunctuation(true));
+    }
+
+    @Test
+    public void configurationIsNotSharedTest() {
+        //given
+        AnagramChecker withPunctuation = AnagramChecker.getInstance().consideringPunctuation(true);
+
+        //when
+        AnagramChecker.getInstance().consideringPunctuation(false);
+
+        //then
+        assertFalse(withPunctuation.isAnagram("asdfghj  klñ", "ñlkj  h g fds, . a"));
+    }
+
+    @Test
+    public void concurrentCheckersTest() throws Exception {
+        //given
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+
+        //when
+        for (int t = 0; t < threads; t++) {
+            boolean punctuation = t % 2 == 0;
+            boolean reference = t % 4 < 2;
+            Callable<Integer> task = () -> {
+                start.await();
+                int errors = 0;
+                for (int i = 0; i < 20000; i++) {
+                    AnagramChecker checker = AnagramChecker.getInstance()
+                            .consideringPunctuation(punctuation).usingReferenceAlgorithm(reference);
+                    if (checker.isAnagram("asdfghj  klñ", "ñlkj  h g fds, . a") == punctuation) {
+                        errors++;
+                    }
+                    if (!checker.isAnagram("CämìÓn", "ca mi on") || checker.isAnagram("camion", "camiona")) {
+                        errors++;
+                    }
+                }
+                return errors;
+            };
+            results.add(executor.submit(task));
+        }
+        start.countDown();
+
+        //then
+        try {
+            for (Future<Integer> result : results) {
+                assertEquals(0, result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void nonLatinAnagramTest() {
+        AnagramChecker checker = AnagramChecker.getInstance().consideringPunctuation(true);
+
+        assertTrue(checker.isAnagram("日本 語жщ", "щж語本 日"));
+        assertFalse(checker.isAnagram("日本語жщ", "щж語本本"));
+        assertTrue(checker.isAnagram("CämìÓn", "ca mi on"));
+        assertFalse(checker.isAnagram("ca-mi-on", "camion"));
+    }
+
+    @Test
+    public void referenceAlgorithmTest() {
+        //given
+        Random random = new Random(7);
+
+        for (boolean punctuation : new boolean[]{true, false}) {
+            AnagramChecker counting = AnagramChecker.getInstance()
+                    .consideringPunctuation(punctuation).usingReferenceAlgorithm(false);
+            AnagramChecker reference = AnagramChecker.getInstance()
+                    .consideringPunctuation(punctuation).usingReferenceAlgorithm(true);
+            for (int i = 0; i < 2000; i++) {
+                //when
+                String one = randomPhrase(random);
+                String two = i % 2 == 0 ? shuffle(one, random) : randomPhrase(random);
+                if (i % 3 == 0) {
+                    two = two + LETTERS.charAt(random.nextInt(LETTERS.length()));
+                }
+
+                //then
+                assertEquals(reference.isAnagram(one, two), counting.isAnagram(one, two), one + " / " + two);
+            }
+        }
+    }
+
+    @Test
+    public void foldTableMatchesNormalizerForEveryCharTest() {
+        for (boolean punctuation : new boolean[]{true, false}) {
+            AnagramChecker checker = AnagramChecker.getInstance().consideringPunctuation(punctuation);
+            for (int c = Character.MIN_VALUE; c <= Character.MAX_VALUE; c++) {
+                //given
+                String phrase = "A" + (char) c + "b";
+
+                //then
+                assertEquals(AnagramChecker.normalizeWithNormalizer(phrase, punctuation), checker.normalize(phrase),
+                        "char " + Integer.toHexString(c));
+            }
+        }
+    }
+
+    @Test
+    public void foldTableMatchesNormalizerRandomTest() {
+        //given
+        Random random = new Random(11);
+        String special = "ΣσςﬁﬀǄĲ가각가\u0301\u0323\u0483\u05B0\u1DC0\u20D0İIı \u00A0\u2000\uD83D\uDE00\uD835\uDC00";
+
+        for (boolean punctuation : new boolean[]{true, false}) {
+            AnagramChecker checker = AnagramChecker.getInstance().consideringPunctuation(punctuation);
+            for (int i = 0; i < 20000; i++) {
+                //when
+                StringBuilder phrase = new StringBuilder();
+                int length = random.nextInt(16);
+                for (int j = 0; j < length; j++) {
+                    switch (random.nextInt(3)) {
+                        case 0 -> phrase.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+                        case 1 -> phrase.append(special.charAt(random.nextInt(special.length())));
+                        default -> phrase.append((char) random.nextInt(Character.MAX_VALUE + 1));
+                    }
+                }
+                String original = phrase.toString();
+
+                //then
+                assertEquals(AnagramChecker.normalizeWithNormalizer(original, punctuation),
+                        checker.normalize(original), original);
+            }
+        }
+    }
+
+    private static String randomPhrase(Random random) {
+        StringBuilder phrase = new StringBuilder();
+        int length = random.nextInt(12);
+        for (int i = 0; i < length; i++) {
+            phrase.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+        }
+        return phrase.toString();
+    }
+
+    private static String shuffle(String phrase, Random random) {
+        char[] chars = phrase.toCharArray();
+        for (int i = chars.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            char aux = chars[i];
+            chars[i] = chars[j];
+            chars[j] = aux;
+        }
+        return new String(chars);
+    }
 }
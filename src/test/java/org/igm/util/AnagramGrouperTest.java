@@ -0,0 +1,99 @@
+package org.igm.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AnagramGrouperTest {
+
+    @TempDir
+    Path workDirectory;
+
+    @Test
+    public void signatureTest() {
+        AnagramChecker checker = AnagramChecker.getInstance().consideringPunctuation(true);
+
+        assertEquals(checker.signature("CämìÓn"), checker.signature("ca mi on"));
+        assertFalse(checker.signature("ca-mi-on").equals(checker.signature("camion")));
+    }
+
+    @Test
+    public void groupTest() {
+        //given
+        AnagramGrouper grouper = new AnagramGrouper(AnagramChecker.getInstance().consideringPunctuation(true));
+        List<String> phrases = Arrays.asList("camion", "roma", "Camión", "amor", "perro", "ca mi on", "mora");
+
+        //when
+        Map<String, List<String>> groups = grouper.group(phrases);
+
+        //then
+        assertEquals(3, groups.size());
+        assertTrue(groups.containsValue(Arrays.asList("camion", "Camión", "ca mi on")));
+        assertTrue(groups.containsValue(Arrays.asList("roma", "amor", "mora")));
+        assertTrue(groups.containsValue(Arrays.asList("perro")));
+    }
+
+    @Test
+    public void parallelGroupTest() {
+        //given
+        AnagramGrouper grouper = new AnagramGrouper(AnagramChecker.getInstance().consideringPunctuation(true));
+        List<String> phrases = randomCorpus(20000);
+
+        //when
+        Map<String, List<String>> sequential = grouper.group(phrases);
+        Map<String, List<String>> parallel = grouper.group(phrases.parallelStream());
+
+        //then
+        assertEquals(sequential, parallel);
+        assertEquals(sequential, grouper.group(phrases.stream()));
+    }
+
+    @Test
+    public void spillingGroupTest() throws IOException {
+        //given
+        AnagramGrouper grouper = new AnagramGrouper(AnagramChecker.getInstance().consideringPunctuation(true), 8);
+        List<String> phrases = randomCorpus(5000);
+        Map<String, List<String>> spilled = new HashMap<>();
+
+        //when
+        grouper.group(phrases, workDirectory, 300, (signature, group) -> {
+            assertFalse(spilled.containsKey(signature));
+            spilled.put(signature, group);
+        });
+
+        //then
+        assertEquals(new HashMap<>(grouper.group(phrases)), spilled);
+        try (Stream<Path> files = Files.list(workDirectory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private static List<String> randomCorpus(int size) {
+        Random random = new Random(size);
+        String letters = "aábcdeéo ñ-";
+        List<String> corpus = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            StringBuilder phrase = new StringBuilder();
+            int length = 1 + random.nextInt(4);
+            for (int j = 0; j < length; j++) {
+                phrase.append(letters.charAt(random.nextInt(letters.length())));
+            }
+            corpus.add(phrase.toString());
+        }
+        return corpus;
+    }
+}
@@ -0,0 +1,112 @@
+package org.igm.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+
+public class CachingNumberToSpanishWordsTest {
+
+  @Test
+  public void sameWordsThanConvert() {
+    CachingNumberToSpanishWords cache = new CachingNumberToSpanishWords(100);
+    Random random = new Random(3);
+    for (int i = 0; i < 10000; i++) {
+      String number = (random.nextBoolean() ? "-" : "") + "0".repeat(random.nextInt(3))
+          + random.nextInt(200) + (random.nextBoolean() ? "." + random.nextInt(1000) : "");
+      assertEquals(number, NumberToSpanishWords.convert(number), cache.convert(number));
+    }
+    assertEquals(10000, cache.getHitCount() + cache.getMissCount());
+    assertEquals(100, cache.size());
+  }
+
+  @Test
+  public void equivalentNumbersShareTheEntry() {
+    CachingNumberToSpanishWords cache = new CachingNumberToSpanishWords(10);
+    cache.convert("10");
+    cache.convert("010");
+    cache.convert("10.00");
+    cache.convert("10.001");
+    assertEquals(1, cache.getMissCount());
+    assertEquals(3, cache.getHitCount());
+    assertEquals(0.75, cache.getHitRate(), 0.0);
+
+    assertEquals("0.50", CachingNumberToSpanishWords.normalize("-000.5"));
+    assertEquals("-12.05", CachingNumberToSpanishWords.normalize("-012.0599"));
+    assertEquals("0", CachingNumberToSpanishWords.normalize("-0.00"));
+    assertNull(CachingNumberToSpanishWords.normalize("0000000000000000000001"));
+    assertNull(CachingNumberToSpanishWords.normalize("1."));
+  }
+
+  @Test
+  public void leastRecentlyUsedIsEvicted() {
+    CachingNumberToSpanishWords cache = new CachingNumberToSpanishWords(2);
+    cache.convert("1");
+    cache.convert("2");
+    cache.convert("1");
+    cache.convert("3");
+    assertEquals(1, cache.getEvictionCount());
+    cache.convert("1");
+    assertEquals(2, cache.getHitCount());
+    cache.convert("2");
+    assertEquals(4, cache.getMissCount());
+    assertEquals(2, cache.size());
+  }
+
+  @Test
+  public void disabledCache() {
+    CachingNumberToSpanishWords cache = new CachingNumberToSpanishWords(0);
+    assertEquals("UNO", cache.convert("1"));
+    assertEquals("UNO", cache.convert("1"));
+    assertEquals(0, cache.getHitCount() + cache.getMissCount());
+    assertEquals(0, cache.size());
+  }
+
+  @Test(expected = NumberFormatException.class)
+  public void rejectedNumbersAreNotCached() {
+    CachingNumberToSpanishWords cache = new CachingNumberToSpanishWords(10);
+    try {
+      cache.convert("1.2.3");
+    } finally {
+      assertEquals(0, cache.getMissCount());
+      assertEquals(0, cache.size());
+    }
+  }
+
+  @Test
+  public void concurrentConversions() throws Exception {
+    CachingNumberToSpanishWords cache = new CachingNumberToSpanishWords(1000);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Boolean>> results = new ArrayList<>();
+      for (int thread = 0; thread < 8; thread++) {
+        Random random = new Random(thread);
+        results.add(executor.submit(() -> {
+          boolean failed = false;
+          for (int i = 0; i < 20000; i++) {
+            String number = Integer.toString(random.nextInt(3000));
+            failed |= !NumberToSpanishWords.convert(number).equals(cache.convert(number));
+          }
+          return failed;
+        }));
+      }
+      for (Future<Boolean> result : results) {
+        assertFalse(result.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(8 * 20000, cache.getHitCount() + cache.getMissCount());
+    // two threads may miss the same number at once, and the second one replaces the entry
+    assertTrue(cache.getEvictionCount() <= cache.getMissCount() - cache.size());
+    assertTrue(cache.size() <= 1000);
+  }
+}
@@ -0,0 +1,66 @@
+package org.igm.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CharOptimizedUnsortedListTest {
+
+    CharOptimizedUnsortedList sut;
+
+    @BeforeEach
+    public void createList() {
+        //given
+        sut = new CharOptimizedUnsortedList();
+    }
+
+    @Test
+    public void removeTheLettersOfAnAnagram() {
+        //given
+        for (char c : "anagrama".toCharArray()) {
+            sut.add(c);
+        }
+
+        //when
+        boolean allRemoved = true;
+        for (char c : "amargana".toCharArray()) {
+            allRemoved &= sut.remove(c);
+        }
+
+        //then
+        assertTrue(allRemoved);
+        assertTrue(sut.isEmpty());
+        assertFalse(sut.contains('a'));
+    }
+
+    @Test
+    public void iteratorAndChars() {
+        //given
+        for (char c : "abcabc".toCharArray()) {
+            sut.add(c);
+        }
+
+        //when
+        PrimitiveIterator.OfInt iterator = sut.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.nextInt() == 'b') {
+                iterator.remove();
+            }
+        }
+
+        //then
+        assertEquals(4, sut.size());
+        assertEquals("aacc", sut.chars().sorted()
+                .collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append).toString());
+        char[] chars = sut.toArray();
+        Arrays.sort(chars);
+        assertArrayEquals("aacc".toCharArray(), chars);
+    }
+}
@@ -0,0 +1,139 @@
+package org.igm.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConcurrentOptimizedUnsortedListTest {
+
+    private static final int THREADS = 4;
+    private static final int PER_THREAD = 50_000;
+
+    ConcurrentOptimizedUnsortedList<Integer> sut;
+
+    @BeforeEach
+    public void createList() {
+        //given
+        sut = new ConcurrentOptimizedUnsortedList<>(8);
+    }
+
+    @Test
+    public void singleThreadedOperations() {
+        //given
+        sut.add(1);
+        sut.add(2);
+        sut.add(1);
+
+        //when
+        boolean removed = sut.remove(1);
+
+        //then
+        assertTrue(removed);
+        assertEquals(2, sut.size());
+        assertTrue(sut.contains(1));
+        assertFalse(sut.remove(3));
+        assertFalse(sut.contains(null));
+        assertThrows(NullPointerException.class, () -> sut.add(null));
+    }
+
+    @Test
+    public void pollAnyDrainsTheList() {
+        //given
+        for (int i = 0; i < 1000; i++) {
+            sut.add(i % 10);
+        }
+
+        //when
+        long sum = 0;
+        while (!sut.isEmpty()) {
+            sum += sut.pollAny();
+        }
+
+        //then
+        assertEquals(100 * 45, sum);
+        assertThrows(NoSuchElementException.class, () -> sut.pollAny());
+    }
+
+    @Test
+    public void concurrentProducersAndConsumers() throws Exception {
+        //given
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS * 2);
+        AtomicLong removed = new AtomicLong();
+        AtomicLong consumed = new AtomicLong();
+        List<Future<?>> futures = new ArrayList<>();
+
+        //when
+        for (int t = 0; t < THREADS; t++) {
+            int base = t * PER_THREAD;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < PER_THREAD; i++) {
+                    sut.add(base + i);
+                    // the element may have been polled by a consumer already
+                    if (i % 2 == 0 && sut.remove(base + i)) {
+                        removed.incrementAndGet();
+                    }
+                }
+            }));
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < PER_THREAD / 4; i++) {
+                    try {
+                        sut.pollAny();
+                        consumed.incrementAndGet();
+                    } catch (NoSuchElementException e) {
+                        // the producers are behind
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        //then
+        int left = 0;
+        for (Integer ignored : sut) {
+            left++;
+        }
+        assertEquals(THREADS * PER_THREAD, left + removed.get() + consumed.get());
+        assertEquals(left, sut.size());
+    }
+
+    @Test
+    public void iteratorIsWeaklyConsistent() {
+        //given
+        for (int i = 0; i < 100; i++) {
+            sut.add(i);
+        }
+
+        //when
+        int visited = 0;
+        Iterator<Integer> iterator = sut.iterator();
+        while (iterator.hasNext()) {
+            Integer next = iterator.next();
+            sut.add(next + 1000);
+            iterator.remove();
+            visited++;
+        }
+
+        //then
+        assertTrue(visited >= 100);
+        assertEquals(100, sut.size());
+        assertFalse(sut.contains(0));
+    }
+}
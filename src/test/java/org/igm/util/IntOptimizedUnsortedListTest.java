@@ -0,0 +1,131 @@
+package org.igm.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IntOptimizedUnsortedListTest {
+
+    IntOptimizedUnsortedList sut;
+
+    @BeforeEach
+    public void createList() {
+        //given
+        sut = new IntOptimizedUnsortedList();
+    }
+
+    @Test
+    public void addAndRemoveDuplicates() {
+        //given
+        sut.add(7);
+        sut.add(-3);
+        sut.add(7);
+
+        //when
+        boolean removed = sut.remove(7);
+
+        //then
+        assertTrue(removed);
+        assertEquals(2, sut.size());
+        assertTrue(sut.contains(7));
+        assertTrue(sut.contains(-3));
+        assertFalse(sut.remove(8));
+    }
+
+    @Test
+    public void removeTheLastOccurrence() {
+        //given
+        sut.add(0);
+        sut.add(Integer.MIN_VALUE);
+
+        //when
+        sut.remove(0);
+        sut.remove(Integer.MIN_VALUE);
+
+        //then
+        assertTrue(sut.isEmpty());
+        assertFalse(sut.contains(0));
+        assertFalse(sut.contains(Integer.MIN_VALUE));
+        assertEquals(0, sut.distinct());
+    }
+
+    @Test
+    public void behavesAsACountingMap() {
+        //given
+        Random random = new Random(16);
+        Map<Integer, Integer> counts = new HashMap<>();
+
+        //when
+        for (int i = 0; i < 100_000; i++) {
+            int value = random.nextInt(500) * 1024;
+            if (random.nextInt(3) == 0) {
+                assertEquals(counts.containsKey(value), sut.remove(value));
+                counts.computeIfPresent(value, (key, count) -> count == 1 ? null : count - 1);
+            } else {
+                sut.add(value);
+                counts.merge(value, 1, Integer::sum);
+            }
+        }
+
+        //then
+        assertEquals(counts.values().stream().mapToInt(Integer::intValue).sum(), sut.size());
+        assertEquals(counts.size(), sut.distinct());
+        for (int value = 0; value < 500 * 1024; value += 1024) {
+            assertEquals(counts.containsKey(value), sut.contains(value));
+        }
+        Map<Integer, Integer> listed = new HashMap<>();
+        sut.forEach(value -> listed.merge(value, 1, Integer::sum));
+        assertEquals(counts, listed);
+    }
+
+    @Test
+    public void iteratorRemove() {
+        //given
+        for (int i = 0; i < 10; i++) {
+            sut.add(i % 3);
+        }
+
+        //when
+        PrimitiveIterator.OfInt iterator = sut.iterator();
+        int visited = 0;
+        while (iterator.hasNext()) {
+            if (iterator.nextInt() != 1) {
+                iterator.remove();
+            }
+            visited++;
+        }
+
+        //then
+        assertEquals(10, visited);
+        assertArrayEquals(new int[] {1, 1, 1}, sut.toArray());
+        assertThrows(IllegalStateException.class, iterator::remove);
+    }
+
+    @Test
+    public void clearAndReuse() {
+        //given
+        for (int i = 0; i < 100; i++) {
+            sut.add(i);
+        }
+
+        //when
+        sut.clear();
+        sut.add(42);
+
+        //then
+        assertEquals(1, sut.size());
+        assertFalse(sut.contains(1));
+        assertEquals(42, sut.stream().sum());
+        assertArrayEquals(new int[] {42}, sut.toArray());
+    }
+}
@@ -0,0 +1,181 @@
+package org.igm.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class KeyedOptimizedUnsortedListTest {
+
+    private static final class Task {
+
+        private final int id;
+
+        Task(int id) {
+            this.id = id;
+        }
+
+        int getId() {
+            return id;
+        }
+    }
+
+    KeyedOptimizedUnsortedList<Task, Integer> sut;
+
+    @BeforeEach
+    public void createList() {
+        //given
+        sut = new KeyedOptimizedUnsortedList<>(Task::getId);
+    }
+
+    @Test
+    public void removeByKey() {
+        //given
+        Task one = new Task(1);
+        Task two = new Task(2);
+        Task three = new Task(3);
+        sut.add(one);
+        sut.add(two);
+        sut.add(three);
+
+        //when
+        Task removed = sut.removeByKey(1);
+
+        //then
+        assertSame(one, removed);
+        assertFalse(sut.contains(one));
+        assertFalse(sut.containsKey(1));
+        assertSame(three, sut.getByKey(3));
+        assertSame(two, sut.getByKey(2));
+        assertNull(sut.removeByKey(1));
+        assertNull(sut.getByKey(4));
+    }
+
+    @Test
+    public void keyIndexFollowsEveryRemoval() {
+        //given
+        Random random = new Random(24);
+        List<Task> reference = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            Task task = new Task(random.nextInt(700));
+            sut.add(task);
+            reference.add(task);
+        }
+
+        //when
+        for (int i = 0; i < 500; i++) {
+            int id = random.nextInt(700);
+            Task removed = sut.removeByKey(id);
+            if (removed != null) {
+                assertEquals(id, removed.getId());
+                assertTrue(reference.remove(removed));
+            }
+            Task polled = sut.pollRandom(random);
+            assertTrue(reference.remove(polled));
+        }
+        sut.removeIf(task -> task.getId() % 5 == 0);
+        reference.removeIf(task -> task.getId() % 5 == 0);
+        List<Task> some = new ArrayList<>(reference.subList(0, 300));
+        sut.removeAll(some);
+        reference.removeAll(some);
+        Iterator<Task> it = sut.iterator();
+        while (it.hasNext()) {
+            Task task = it.next();
+            if (task.getId() % 7 == 0) {
+                it.remove();
+                reference.remove(task);
+            }
+        }
+
+        //then
+        assertEquals(reference.size(), sut.size());
+        for (int id = 0; id < 700; id++) {
+            int expected = 0;
+            for (Task task : reference) {
+                expected += task.getId() == id ? 1 : 0;
+            }
+            assertEquals(expected, sut.countByKey(id));
+            for (int i = 0; i < expected; i++) {
+                Task removed = sut.removeByKey(id);
+                assertEquals(id, removed.getId());
+                assertTrue(reference.remove(removed));
+            }
+            assertFalse(sut.containsKey(id));
+        }
+        assertTrue(sut.isEmpty());
+    }
+
+    @Test
+    public void clearAndClone() {
+        //given
+        sut.add(new Task(1));
+        sut.add(new Task(2));
+        KeyedOptimizedUnsortedList<Task, Integer> clone = sut.clone();
+
+        //when
+        sut.clear();
+        sut.add(new Task(3));
+
+        //then
+        assertFalse(sut.containsKey(1));
+        assertTrue(sut.containsKey(3));
+        assertTrue(clone.containsKey(1));
+        assertTrue(clone.containsKey(2));
+        assertEquals(2, clone.removeByKey(2).getId());
+    }
+
+    @Test
+    public void keyIndexSurvivesShrinking() {
+        //given
+        for (int i = 0; i < 10_000; i++) {
+            sut.add(new Task(i));
+        }
+        long peak = sut.memoryFootprint();
+
+        //when
+        for (int i = 0; i < 9_990; i++) {
+            sut.removeByKey(i);
+        }
+        sut.trimToSize();
+
+        //then
+        assertTrue(sut.memoryFootprint() < peak / 100);
+        for (int i = 9_990; i < 10_000; i++) {
+            assertEquals(i, sut.getByKey(i).getId());
+        }
+        sut.add(new Task(1));
+        assertEquals(1, sut.removeByKey(1).getId());
+        assertEquals(10, sut.size());
+    }
+
+    @Test
+    public void throwingKeyExtractorLeavesTheListUnchanged() {
+        //given
+        KeyedOptimizedUnsortedList<String, Integer> lengths = new KeyedOptimizedUnsortedList<>(String::length);
+        lengths.add("ab");
+
+        //when
+        assertThrows(NullPointerException.class, () -> lengths.add(null));
+        assertThrows(NullPointerException.class, () -> lengths.addAll(Arrays.asList("abc", null, "d")));
+
+        //then
+        assertEquals(2, lengths.size());
+        assertFalse(lengths.contains(null));
+        assertFalse(lengths.remove(null));
+        assertEquals("abc", lengths.getByKey(3));
+        assertTrue(lengths.remove("ab"));
+        assertEquals("abc", lengths.removeByKey(3));
+        assertTrue(lengths.isEmpty());
+    }
+}
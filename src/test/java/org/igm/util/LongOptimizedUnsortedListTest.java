@@ -0,0 +1,87 @@
+package org.igm.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LongOptimizedUnsortedListTest {
+
+    LongOptimizedUnsortedList sut;
+
+    @BeforeEach
+    public void createList() {
+        //given
+        sut = new LongOptimizedUnsortedList();
+    }
+
+    @Test
+    public void valuesDifferingInTheHighBits() {
+        //given
+        long low = 5L;
+        long high = 5L | 1L << 40;
+
+        //when
+        sut.add(low);
+        sut.add(high);
+        sut.remove(low);
+
+        //then
+        assertEquals(1, sut.size());
+        assertFalse(sut.contains(low));
+        assertTrue(sut.contains(high));
+    }
+
+    @Test
+    public void behavesAsACountingMap() {
+        //given
+        Random random = new Random(16);
+        Map<Long, Integer> counts = new HashMap<>();
+
+        //when
+        for (int i = 0; i < 100_000; i++) {
+            long value = (long) random.nextInt(500) << 32;
+            if (random.nextInt(3) == 0) {
+                assertEquals(counts.containsKey(value), sut.remove(value));
+                counts.computeIfPresent(value, (key, count) -> count == 1 ? null : count - 1);
+            } else {
+                sut.add(value);
+                counts.merge(value, 1, Integer::sum);
+            }
+        }
+
+        //then
+        assertEquals(counts.values().stream().mapToInt(Integer::intValue).sum(), sut.size());
+        assertEquals(counts.size(), sut.distinct());
+        Map<Long, Integer> listed = new HashMap<>();
+        sut.forEach(value -> listed.merge(value, 1, Integer::sum));
+        assertEquals(counts, listed);
+    }
+
+    @Test
+    public void iteratorRemove() {
+        //given
+        for (long i = 0; i < 10; i++) {
+            sut.add(i);
+        }
+
+        //when
+        PrimitiveIterator.OfLong iterator = sut.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.nextLong() % 2 == 0) {
+                iterator.remove();
+            }
+        }
+
+        //then
+        assertEquals(5, sut.size());
+        assertEquals(1 + 3 + 5 + 7 + 9, sut.stream().sum());
+    }
+}
@@ -0,0 +1,110 @@
+package org.igm.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MappedLongOptimizedUnsortedListTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void behavesAsACountingMapAcrossReopens() throws IOException {
+        //given
+        Random random = new Random(21);
+        Map<Long, Integer> counts = new HashMap<>();
+
+        //when
+        for (int round = 0; round < 3; round++) {
+            try (MappedLongOptimizedUnsortedList sut = MappedLongOptimizedUnsortedList.open(directory)) {
+                assertEquals(counts, countsOf(sut));
+                for (int i = 0; i < 20_000; i++) {
+                    long value = random.nextInt(5000) * 0x1_0000_0001L;
+                    if (random.nextInt(3) == 0) {
+                        assertEquals(counts.containsKey(value), sut.remove(value));
+                        counts.computeIfPresent(value, (key, count) -> count == 1 ? null : count - 1);
+                    } else {
+                        sut.add(value);
+                        counts.merge(value, 1, Integer::sum);
+                    }
+                }
+            }
+        }
+
+        //then
+        try (MappedLongOptimizedUnsortedList sut = MappedLongOptimizedUnsortedList.open(directory)) {
+            assertEquals(counts, countsOf(sut));
+            assertEquals(counts.size(), sut.distinct());
+            for (long value : counts.keySet()) {
+                assertTrue(sut.contains(value));
+            }
+            assertFalse(sut.contains(-1L));
+        }
+    }
+
+    @Test
+    public void iteratorRemove() throws IOException {
+        //given
+        try (MappedLongOptimizedUnsortedList sut = MappedLongOptimizedUnsortedList.open(directory)) {
+            for (long i = 0; i < 10; i++) {
+                sut.add(i % 3);
+            }
+
+            //when
+            PrimitiveIterator.OfLong iterator = sut.iterator();
+            while (iterator.hasNext()) {
+                if (iterator.nextLong() != 1) {
+                    iterator.remove();
+                }
+            }
+
+            //then
+            assertEquals(3, sut.size());
+            assertEquals(1, sut.get(0));
+            assertEquals(1, sut.distinct());
+            assertThrows(IndexOutOfBoundsException.class, () -> sut.get(3));
+        }
+    }
+
+    @Test
+    public void rejectsOtherFiles() throws IOException {
+        //given
+        Files.write(directory.resolve("elements.bin"), new byte[100]);
+
+        //when
+        //then
+        assertThrows(IOException.class, () -> MappedLongOptimizedUnsortedList.open(directory));
+    }
+
+    @Test
+    public void closedListsCantBeUsed() throws IOException {
+        //given
+        MappedLongOptimizedUnsortedList sut = MappedLongOptimizedUnsortedList.open(directory);
+
+        //when
+        sut.close();
+
+        //then
+        assertThrows(IllegalStateException.class, () -> sut.add(1));
+        sut.close();
+    }
+
+    private static Map<Long, Integer> countsOf(MappedLongOptimizedUnsortedList list) {
+        Map<Long, Integer> counts = new HashMap<>();
+        list.forEach(value -> counts.merge(value, 1, Integer::sum));
+        return counts;
+    }
+}
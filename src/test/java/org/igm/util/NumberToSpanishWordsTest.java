@@ -7,6 +7,16 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Random;
+import org.igm.util.NumberToSpanishWords.LetterCase;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.junit.MockitoJUnitRunner;
@@ -140,4 +150,367 @@ public class NumberToSpanishWordsTest {
     //Invalid (Multiple decimal parts)
     assertFalse(isStringAcceptedAsNumber("5.11.11"));
   }
+
+  @Test
+  public void matchesReferenceImplementation() {
+    Random random = new Random(21);
+    for (int i = 0; i < 200000; i++) {
+      StringBuilder number = new StringBuilder();
+      if (random.nextInt(4) == 0) {
+        number.append('-');
+      }
+      int digits = 1 + random.nextInt(number.length() == 0 ? 21 : 20);
+      for (int j = 0; j < digits; j++) {
+        // zeros are over-represented so that the empty groups are exercised
+        number.append(random.nextInt(3) == 0 ? '0' : random.nextInt(3) == 0 ? '1'
+            : (char) ('0' + random.nextInt(10)));
+      }
+      if (random.nextBoolean()) {
+        number.append('.');
+        int decimals = 1 + random.nextInt(4);
+        for (int j = 0; j < decimals; j++) {
+          number.append((char) ('0' + random.nextInt(10)));
+        }
+      }
+      assertEquals(number.toString(), NumberToSpanishWordsReference.convert(number.toString()),
+          convert(number.toString()));
+    }
+  }
+
+  @Test
+  public void matchesReferenceImplementationForEveryGroupValue() {
+    String[] templates = {"#", "#000", "#000000", "#000000000", "#000000000000",
+        "#000000000000000", "#000000000000000000", "1#001#", "#001000000", "#000000000001",
+        "1#000#000#"};
+    for (String template : templates) {
+      for (int value = 0; value < 1000; value++) {
+        String number = template.replace("#", Integer.toString(value));
+        if (number.length() > 21) {
+          continue;
+        }
+        assertEquals(number, NumberToSpanishWordsReference.convert(number), convert(number));
+        if (number.length() < 21) {
+          String negative = "-" + number + ".0" + value % 10;
+          assertEquals(negative, NumberToSpanishWordsReference.convert(negative),
+              convert(negative));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void rejectsTheSameInputsThanReferenceImplementation() {
+    String[] invalid = {"", "-", ".5", "5.", "1.2.3", "+1", "1,5", " 1", "1 ", "1e5", "--1", "-.5",
+        "\u0663", "-999999999999999999999", "1000000000000000000000.5"};
+    for (String number : invalid) {
+      assertFalse(number, isStringAcceptedAsNumber(number));
+      try {
+        convert(number);
+        throw new AssertionError("accepted " + number);
+      } catch (NumberFormatException e) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void rejectedNumbersAppendNothing() throws IOException {
+    StringBuilder out = new StringBuilder("DOS, ");
+    try {
+      convert("1.2.3", LetterCase.UPPER, out);
+      throw new AssertionError("accepted 1.2.3");
+    } catch (NumberFormatException e) {
+      assertEquals("DOS, ", out.toString());
+    }
+    StringWriter writer = new StringWriter();
+    try {
+      convert("1e5", NumberWordsProfile.EUROS, LetterCase.UPPER, writer);
+      throw new AssertionError("accepted 1e5");
+    } catch (NumberFormatException e) {
+      assertEquals("", writer.toString());
+    }
+  }
+
+  @Test
+  public void primitiveOverloads() {
+    assertEquals("CERO", convert(0));
+    assertEquals("UNO", convert(1));
+    assertEquals("MENOS VEINTIUNO", convert(-21));
+    assertEquals("CIEN", convert(100L));
+    assertEquals(convert(Long.toString(Long.MAX_VALUE)), convert(Long.MAX_VALUE));
+    assertEquals(convert(Long.toString(Long.MIN_VALUE)), convert(Long.MIN_VALUE));
+    assertEquals(convert(Integer.toString(Integer.MIN_VALUE)), convert(Integer.MIN_VALUE));
+
+    Random random = new Random(8);
+    for (int i = 0; i < 100000; i++) {
+      long number = random.nextLong() >> random.nextInt(64);
+      assertEquals(Long.toString(number), convert(Long.toString(number)), convert(number));
+    }
+  }
+
+  @Test
+  public void bigDecimalOverload() {
+    assertEquals("UNO CON CINCUENTA", convert(new BigDecimal("1.5")));
+    assertEquals("UNO CON CERO CINCO", convert(new BigDecimal("1.05")));
+    assertEquals("CERO CON CINCUENTA", convert(new BigDecimal("-0.5")));
+    assertEquals("MIL", convert(new BigDecimal("1E+3")));
+
+    Random random = new Random(9);
+    for (int i = 0; i < 100000; i++) {
+      StringBuilder digits = new StringBuilder();
+      int length = 1 + random.nextInt(20);
+      for (int j = 0; j < length; j++) {
+        digits.append((char) ('0' + random.nextInt(10)));
+      }
+      BigDecimal number = new BigDecimal(new BigInteger(digits.toString()),
+          random.nextInt(5)).negate().multiply(BigDecimal.valueOf(random.nextBoolean() ? 1 : -1));
+      assertEquals(number.toPlainString(), convert(number.toPlainString()), convert(number));
+    }
+  }
+
+  @Test(expected = NumberFormatException.class)
+  public void tooLongBigDecimal() {
+    convert(new BigDecimal("-100000000000000000000"));
+  }
+
+  @Test
+  public void appendableOutput() throws IOException {
+    StringBuilder reused = new StringBuilder();
+    StringWriter writer = new StringWriter();
+    Random random = new Random(11);
+    for (int i = 0; i < 10000; i++) {
+      String number = (random.nextBoolean() ? "-" : "")
+          + (random.nextLong() >>> 1 + random.nextInt(63))
+          + (random.nextBoolean() ? "." + random.nextInt(1000) : "");
+      reused.setLength(0);
+      writer.getBuffer().setLength(0);
+      convert(number, LetterCase.UPPER, reused);
+      convert(number, writer);
+      assertEquals(number, convert(number), reused.toString());
+      assertEquals(number, convert(number), writer.toString());
+      assertEquals(number, convert(number).toLowerCase(), convert(number, LetterCase.LOWER));
+    }
+  }
+
+  @Test
+  public void letterCases() {
+    assertEquals("ciento veintiuno con cero cinco", convert("121.05", LetterCase.LOWER));
+    assertEquals("Menos Ciento Veintiuno con Cero Cinco", convert("-121.05", LetterCase.TITLE));
+    assertEquals("Treinta y Un Mil Millones con Cincuenta",
+        convert("31000000000.5", LetterCase.TITLE));
+    assertEquals("Cero", convert("-0", LetterCase.TITLE));
+  }
+
+  @Test
+  public void nothingIsWrittenForRejectedNumbers() {
+    StringBuilder out = new StringBuilder("previous");
+    for (String number : new String[] {"", "-", "1.", "1.2.3", "a", "1000000000000000000000"}) {
+      try {
+        convert(number, LetterCase.UPPER, out);
+      } catch (NumberFormatException e) {
+        assertEquals(number, "previous", out.toString());
+        continue;
+      }
+      throw new AssertionError(number + " should be rejected");
+    }
+  }
+
+  @Test
+  public void bulkConversion() {
+    Random random = new Random(13);
+    String[] numbers = new String[20000];
+    for (int i = 0; i < numbers.length; i++) {
+      numbers[i] = (random.nextBoolean() ? "-" : "") + (random.nextLong() >>> random.nextInt(64))
+          + (random.nextBoolean() ? "." + random.nextInt(1000) : "");
+    }
+    numbers[5] = "1.2.3";
+    numbers[9000] = null;
+
+    BulkConversionResult result = NumberToSpanishWords.convertAll(numbers);
+    assertEquals(numbers.length, result.size());
+    for (int i = 0; i < numbers.length; i++) {
+      if (numbers[i] != null && isStringAcceptedAsNumber(numbers[i])) {
+        assertTrue(result.isConverted(i));
+        assertEquals(numbers[i], convert(numbers[i]), result.get(i));
+      } else {
+        assertFalse(result.isConverted(i));
+        assertTrue(result.getErrors().containsKey(i));
+      }
+    }
+    assertEquals(numbers.length - result.getErrors().size(),
+        result.asList().stream().filter(words -> words != null).count());
+    assertEquals(Integer.valueOf(5), result.getErrors().firstKey());
+    assertEquals(result.asList(),
+        NumberToSpanishWords.convertAll(Arrays.stream(numbers)).asList());
+  }
+
+  @Test
+  public void bulkConversionOfNumericTypes() {
+    Random random = new Random(15);
+    long[] longs = new long[10000];
+    BigDecimal[] decimals = new BigDecimal[longs.length + 1];
+    for (int i = 0; i < longs.length; i++) {
+      longs[i] = random.nextLong() >> random.nextInt(64);
+      decimals[i] = BigDecimal.valueOf(longs[i], random.nextInt(4));
+    }
+    decimals[longs.length] = new BigDecimal("-100000000000000000000");
+
+    String[] words = NumberToSpanishWords.convertAll(longs);
+    BulkConversionResult result = NumberToSpanishWords.convertAll(decimals);
+    for (int i = 0; i < longs.length; i++) {
+      assertEquals(convert(longs[i]), words[i]);
+      assertEquals(convert(decimals[i]), result.get(i));
+    }
+    assertEquals(Collections.singleton(longs.length), result.getErrors().keySet());
+  }
+
+  @Test
+  public void validationParts() {
+    NumberValidation validation = NumberToSpanishWords.validate("-123.45");
+    assertTrue(validation.isValid());
+    assertTrue(validation.isNegative());
+    assertEquals(1, validation.getIntegerStart());
+    assertEquals(4, validation.getIntegerEnd());
+    assertTrue(validation.hasFraction());
+    assertEquals(5, validation.getFractionStart());
+    assertEquals(7, validation.getFractionEnd());
+    assertEquals(-1, validation.getErrorIndex());
+
+    assertFalse(validation.validate("7").hasFraction());
+    assertEquals(1, validation.getFractionStart());
+    assertFalse(validation.isNegative());
+    assertEquals(3, validation.validate("1.2a").getErrorIndex());
+    assertEquals(1, validation.validate("1,2").getErrorIndex());
+    assertEquals(21, validation.validate("1000000000000000000000").getErrorIndex());
+    assertFalse(validation.isValid());
+
+    StringBuilder out = new StringBuilder();
+    validation.validate("21.1");
+    assertEquals("VEINTIUNO CON DIEZ",
+        convert("21.1", validation, LetterCase.UPPER, out).toString());
+  }
+
+  @Test
+  public void bulkValidation() {
+    CharSequence[] numbers = {"1", "-", "1.5", "1.", "", "-000000000000000000001", "01.00"};
+    boolean[] accepted = new boolean[numbers.length];
+    assertEquals(3, NumberToSpanishWords.validateAll(numbers, accepted));
+    for (int i = 0; i < numbers.length; i++) {
+      assertEquals(isStringAcceptedAsNumber(numbers[i].toString()), accepted[i]);
+    }
+  }
+
+  @Test
+  public void arbitraryMagnitude() {
+    assertEquals("UN CUATRILL\u00D3N", convert("1" + "0".repeat(24), 2));
+    assertEquals("MIL QUINTILLONES DOS", convert("1" + "0".repeat(32) + "2", 2));
+    assertEquals("MENOS UN VIGINTILL\u00D3N CON CINCO", convert("-1" + "0".repeat(120) + ".5", 1));
+    assertTrue(convert("9".repeat(NumberToSpanishWords.MAX_DIGITS), 0)
+        .startsWith("NOVECIENTOS NOVENTA Y NUEVE VIGINTILLONES NOVECIENTOS NOVENTA Y NUEVE MIL"));
+
+    Random random = new Random(17);
+    for (int i = 0; i < 10000; i++) {
+      StringBuilder number = new StringBuilder(random.nextBoolean() ? "-" : "");
+      number.append((char) ('1' + random.nextInt(9)));
+      int digits = random.nextInt(NumberToSpanishWords.MAX_DIGITS);
+      for (int j = 0; j < digits; j++) {
+        number.append((char) ('0' + random.nextInt(10)));
+      }
+      if (random.nextBoolean()) {
+        number.append('.').append(random.nextInt(100));
+      }
+      String words = convert(number.toString(), 2);
+      assertEquals(number.toString(),
+          new BigDecimal(number.toString()).setScale(2, RoundingMode.DOWN),
+          SpanishWordsToNumber.parse(words).setScale(2));
+      if (number.length() <= 21 || number.indexOf(".") > 0 && number.indexOf(".") <= 21) {
+        assertEquals(number.toString(), convert(number.toString()), words);
+      }
+    }
+  }
+
+  @Test
+  public void decimalPrecision() {
+    assertEquals("UNO CON CERO CINCUENTA", convert("1.05", 3));
+    assertEquals("UNO", convert("1.0005", 3));
+    assertEquals("UNO", convert("1.99", 0));
+    assertEquals("CERO CON CERO CERO UNO", convert("0.001", 3));
+    assertEquals("UNO CON CIENTO VEINTITR\u00C9S MIL CUATROCIENTOS CINCUENTA Y SEIS",
+        convert("1.123456789", 6));
+    Random random = new Random(19);
+    for (int i = 0; i < 10000; i++) {
+      String number = random.nextInt(1000) + "." + random.nextInt(1000);
+      assertEquals(number, convert(number), convert(number, 2));
+    }
+  }
+
+  @Test(expected = NumberFormatException.class)
+  public void tooManyDigitsForAnyPower() {
+    convert("1" + "0".repeat(NumberToSpanishWords.MAX_DIGITS), 2);
+  }
+
+  @Test
+  public void spanishProfileIsTheDefault() {
+    Random random = new Random(23);
+    for (int i = 0; i < 10000; i++) {
+      String number = (random.nextBoolean() ? "-" : "")
+          + (random.nextLong() >>> 1 + random.nextInt(63))
+          + (random.nextBoolean() ? "." + random.nextInt(1000) : "");
+      assertEquals(number, convert(number), convert(number, NumberWordsProfile.SPANISH));
+      BigDecimal decimal = new BigDecimal(number);
+      assertEquals(number, convert(decimal), convert(decimal, NumberWordsProfile.SPANISH));
+    }
+  }
+
+  @Test
+  public void feminineProfile() {
+    NumberWordsProfile feminine = NumberWordsProfile.SPANISH_FEMININE;
+    assertEquals("DOSCIENTAS UNA CON CERO UNO", convert("201.01", feminine));
+    assertEquals("VEINTIUNA", convert("21", feminine));
+    assertEquals("DOSCIENTAS MIL QUINIENTAS", convert("200500", feminine));
+    assertEquals("DOSCIENTOS MILLONES", convert("200000000", feminine));
+    assertEquals("QUINIENTOS MIL MILLONES", convert("500000000000", feminine));
+  }
+
+  @Test
+  public void currencyProfile() throws IOException {
+    NumberWordsProfile euros = NumberWordsProfile.EUROS;
+    assertEquals("UN EURO", convert("1", euros));
+    assertEquals("CERO EUROS CON CINCUENTA C\u00C9NTIMOS", convert("0.5", euros));
+    assertEquals("DOSCIENTOS UN EUROS CON UN C\u00C9NTIMO", convert("201.01", euros));
+    assertEquals("VEINTIUN EUROS CON CINCO C\u00C9NTIMOS", convert("21.05", euros));
+    assertEquals("MENOS UN MILL\u00D3N DE EUROS", convert("-1000000", euros));
+    assertEquals("MIL MILLONES DE EUROS", convert(new BigDecimal("1E+9"), euros));
+    assertEquals("UN MILL\u00D3N UN EUROS", convert(new BigDecimal("1000001.00"), euros));
+    assertEquals("DOS MILLONES CIEN MIL EUROS", convert("2100000", euros));
+
+    StringBuilder out = new StringBuilder();
+    convert("31.31",
+        NumberWordsProfile.currency("libra", "libras", "penique", "peniques", true, false),
+        LetterCase.TITLE, out);
+    assertEquals("Treinta y Una Libras con Treinta y Un Peniques", out.toString());
+    out.setLength(0);
+    convert("21.21", NumberWordsProfile.currency("d\u00F3lar", "d\u00F3lares", "moneda", "monedas",
+        false, true), LetterCase.TITLE, out);
+    assertEquals("Veintiun D\u00F3lares con Veintiuna Monedas", out.toString());
+    out.setLength(0);
+    convert("3000000", euros, LetterCase.TITLE, out);
+    assertEquals("Tres Millones de Euros", out.toString());
+  }
+
+  @Test
+  public void wordsDontDependOnTheDefaultLocale() throws IOException {
+    Locale defaultLocale = Locale.getDefault();
+    try {
+      Locale.setDefault(Locale.forLanguageTag("tr"));
+      NumberWordsProfile pesos = NumberWordsProfile.currency("peso", "pesos", "centavo", "centavos",
+          false);
+      assertEquals("VEINTIUN PESOS CON SEIS CENTAVOS", convert("21.06", pesos));
+      StringBuilder out = new StringBuilder();
+      convert("1000000", pesos, LetterCase.TITLE, out);
+      assertEquals("Un Mill\u00F3n de Pesos", out.toString());
+    } finally {
+      Locale.setDefault(defaultLocale);
+    }
+  }
 }
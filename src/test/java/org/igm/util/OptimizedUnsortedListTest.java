@@ -5,14 +5,26 @@ import org.igm.util.OptimizedUnsortedList;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class OptimizedUnsortedListTest {
 
@@ -84,6 +96,26 @@ public class OptimizedUnsortedListTest {
         }
     }
 
+    @Test
+    public void addAllOfItself() {
+        //given
+        sut.add(1);
+        sut.add(2);
+
+        //when
+        for (int i = 0; i < 4; i++) {
+            sut.addAll(sut);
+        }
+
+        //then
+        assertEquals(32, sut.size());
+        assertEquals(16, sut.count(1));
+        assertEquals(16, sut.count(2));
+        assertTrue(sut.remove(1));
+        assertEquals(15, sut.count(1));
+        assertEquals(31, sut.size());
+    }
+
     @Test
     public void clearTest() {
         //given
@@ -114,6 +146,23 @@ public class OptimizedUnsortedListTest {
         assertEquals(sut.size(), 2);
     }
 
+    @Test
+    public void retainAllKeepsNoMoreCopiesThanTheList() {
+        //given
+        sut.add("a");
+        sut.add("b");
+        sut.add("b");
+
+        //when
+        boolean changed = sut.retainAll(List.of("a", "a", "a", "b", "b", "b"));
+
+        //then
+        assertFalse(changed);
+        assertEquals(3, sut.size());
+        assertEquals(1, sut.count("a"));
+        assertEquals(2, sut.count("b"));
+    }
+
     @Test
     public void equalsTest() {
         //given
@@ -164,4 +213,419 @@ public class OptimizedUnsortedListTest {
         //then
         assertEquals(sut.hashCode(), optimizedUnsortedList.hashCode());
     }
+
+    @Test
+    public void removeDuplicatesTest() {
+        //given
+        String[] aux = {"one", "two", "one", "three", "one", "two"};
+        sut.addAll(Arrays.stream(aux).toList());
+
+        //when
+        sut.remove("one");
+        sut.remove("two");
+        sut.remove("one");
+
+        //then
+        assertEquals(sut.size(), 3);
+        assertTrue(sut.contains("one"));
+        assertTrue(sut.contains("two"));
+        assertTrue(sut.contains("three"));
+        assertFalse(sut.remove("four"));
+        sut.remove("one");
+        assertFalse(sut.contains("one"));
+    }
+
+    @Test
+    public void randomOperationsTest() {
+        //given
+        Random random = new Random(42);
+        List<Object> reference = new ArrayList<>();
+
+        //when
+        for (int i = 0; i < 20000; i++) {
+            Integer value = random.nextInt(50);
+            if (random.nextBoolean()) {
+                sut.add(value);
+                reference.add(value);
+            } else {
+                assertEquals(reference.remove(value), sut.remove(value));
+            }
+
+            //then
+            assertEquals(reference.size(), sut.size());
+            assertEquals(reference.contains(value), sut.contains(value));
+        }
+        for (Object value : reference) {
+            assertTrue(sut.contains(value));
+        }
+        OptimizedUnsortedList<Object> other = new OptimizedUnsortedList<>();
+        other.addAll(reference);
+        assertTrue(other.equals(sut));
+    }
+
+    @Test
+    public void sampleWithoutReplacement() {
+        //given
+        Random random = new Random(18);
+        for (int i = 0; i < 100; i++) {
+            sut.add(i);
+        }
+
+        //when
+        List<Object> all = sut.sample(100, random);
+        List<Object> some = sut.sample(10, random);
+
+        //then
+        assertEquals(100, new HashSet<>(all).size());
+        assertEquals(10, new HashSet<>(some).size());
+        assertTrue(sut.containsAll(some));
+        assertTrue(sut.sample(0, random).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> sut.sample(101, random));
+        assertTrue(sut.contains(sut.sample(random)));
+    }
+
+    @Test
+    public void sampleIsUniform() {
+        //given
+        Random random = new Random(18);
+        String[] aux = {"one", "two", "two", "three"};
+        sut.addAll(Arrays.stream(aux).toList());
+        Map<Object, Integer> counts = new HashMap<>();
+
+        //when
+        for (int i = 0; i < 40000; i++) {
+            counts.merge(sut.sample(random), 1, Integer::sum);
+        }
+
+        //then
+        assertEquals(10000, counts.get("one"), 500);
+        assertEquals(20000, counts.get("two"), 500);
+        assertEquals(10000, counts.get("three"), 500);
+    }
+
+    @Test
+    public void pollKeepsTheIndex() {
+        //given
+        Random random = new Random(18);
+        List<Object> reference = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            sut.add(i % 37);
+            reference.add(i % 37);
+        }
+
+        //when
+        while (!sut.isEmpty()) {
+            Object polled = random.nextBoolean() ? sut.pollRandom(random) : sut.pollAny();
+            assertTrue(reference.remove(polled));
+
+            //then
+            assertEquals(reference.size(), sut.size());
+            assertEquals(reference.contains(polled), sut.contains(polled));
+        }
+        assertThrows(NoSuchElementException.class, () -> sut.pollAny());
+        assertThrows(NoSuchElementException.class, () -> sut.pollRandom(random));
+        assertThrows(NoSuchElementException.class, () -> sut.sample(random));
+    }
+
+    @Test
+    public void pollTellsNullElementsFromAnEmptyList() {
+        //given
+        sut.add(null);
+        sut.add(null);
+
+        //when
+        Object polled = sut.pollAny();
+
+        //then
+        assertNull(polled);
+        assertNull(sut.pollRandom(new Random(18)));
+        assertTrue(sut.isEmpty());
+        assertThrows(NoSuchElementException.class, () -> sut.pollAny());
+    }
+
+    @Test
+    public void multisetView() {
+        //given
+        String[] aux = {"one", "two", "two", "three", "three", "three"};
+        sut.addAll(Arrays.stream(aux).toList());
+        Set<Object> distinct = sut.distinctElements();
+
+        //when
+        int removed = sut.removeAll("three", 2);
+
+        //then
+        assertEquals(2, removed);
+        assertEquals(1, sut.count("one"));
+        assertEquals(2, sut.count("two"));
+        assertEquals(1, sut.count("three"));
+        assertEquals(0, sut.count("four"));
+        assertEquals(Set.of("one", "two", "three"), distinct);
+        assertEquals(Map.of("one", 1, "two", 2, "three", 1),
+                sut.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)));
+        assertEquals(1, sut.removeAll("one", 5));
+        assertFalse(distinct.contains("one"));
+        assertEquals(0, sut.removeAll("one", 1));
+    }
+
+    @Test
+    public void equalsComparesCounts() {
+        //given
+        String[] aux = {"one", "two", "two"};
+        String[] aux2 = {"one", "one", "two"};
+        OptimizedUnsortedList<Object> sut2 = new OptimizedUnsortedList<>();
+
+        //when
+        sut.addAll(Arrays.stream(aux).toList());
+        sut2.addAll(Arrays.stream(aux2).toList());
+
+        //then
+        assertNotEquals(sut, sut2);
+        sut2.remove("one");
+        sut2.add("two");
+        assertEquals(sut, sut2);
+        assertEquals(sut.hashCode(), sut2.hashCode());
+    }
+
+    @Test
+    public void bulkOperationsAsMultisets() {
+        //given
+        Random random = new Random(20);
+        List<Object> reference = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            reference.add(random.nextInt(300));
+        }
+        List<Object> toRemove = new ArrayList<>();
+        List<Object> toRetain = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            toRemove.add(random.nextInt(300));
+            toRetain.add(random.nextInt(300));
+        }
+        sut.addAll(reference);
+
+        //when
+        boolean removed = sut.removeAll(toRemove);
+        for (Object o : toRemove) {
+            reference.remove(o);
+        }
+        boolean retained = sut.retainAll(toRetain);
+        List<Object> kept = new ArrayList<>();
+        List<Object> available = new ArrayList<>(toRetain);
+        for (Object o : reference) {
+            if (available.remove(o)) {
+                kept.add(o);
+            }
+        }
+
+        //then
+        assertTrue(removed);
+        assertTrue(retained);
+        OptimizedUnsortedList<Object> expected = new OptimizedUnsortedList<>();
+        expected.addAll(kept);
+        assertEquals(expected, sut);
+        for (Object o : expected.distinctElements()) {
+            assertEquals(expected.count(o), sut.count(o));
+        }
+        while (!sut.isEmpty()) {
+            assertTrue(kept.remove(sut.pollRandom(random)));
+        }
+        assertTrue(kept.isEmpty());
+        assertFalse(sut.removeAll(toRemove));
+    }
+
+    @Test
+    public void cloneIsIndependent() {
+        //given
+        String[] aux = {"one", "two", "two", "three"};
+        sut.addAll(Arrays.stream(aux).toList());
+
+        //when
+        OptimizedUnsortedList<Object> other = sut.clone();
+        other.remove("two");
+        other.add("four");
+
+        //then
+        assertEquals(2, sut.count("two"));
+        assertFalse(sut.contains("four"));
+        assertEquals(1, other.count("two"));
+        assertTrue(other.remove("one"));
+        assertTrue(other.remove("two"));
+        assertEquals(Set.of("three", "four"), other.distinctElements());
+    }
+
+    @Test
+    public void iteratorRemoveKeepsTheIndex() {
+        //given
+        for (int i = 0; i < 1000; i++) {
+            sut.add(i % 10);
+        }
+
+        //when
+        Iterator<Object> it = sut.iterator();
+        int visited = 0;
+        while (it.hasNext()) {
+            if ((Integer) it.next() % 2 == 0) {
+                it.remove();
+            }
+            visited++;
+        }
+
+        //then
+        assertEquals(1000, visited);
+        assertEquals(500, sut.size());
+        assertFalse(sut.contains(0));
+        assertEquals(100, sut.count(1));
+        assertEquals(100, sut.removeAll(1, 1000));
+        assertThrows(IllegalStateException.class, it::remove);
+    }
+
+    @Test
+    public void iteratorFailsFast() {
+        //given
+        sut.add("one");
+        sut.add("two");
+        Iterator<Object> it = sut.iterator();
+        it.next();
+
+        //when
+        sut.add("three");
+
+        //then
+        assertThrows(ConcurrentModificationException.class, it::next);
+    }
+
+    @Test
+    public void removeIfInOnePass() {
+        //given
+        Random random = new Random(23);
+        List<Object> reference = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            int value = random.nextInt(500);
+            sut.add(value);
+            reference.add(value);
+        }
+
+        //when
+        boolean removed = sut.removeIf(o -> (Integer) o % 3 == 0);
+        reference.removeIf(o -> (Integer) o % 3 == 0);
+
+        //then
+        assertTrue(removed);
+        OptimizedUnsortedList<Object> expected = new OptimizedUnsortedList<>();
+        expected.addAll(reference);
+        assertEquals(expected, sut);
+        for (Object o : expected.distinctElements()) {
+            assertEquals(expected.count(o), sut.removeAll(o, Integer.MAX_VALUE));
+        }
+        assertTrue(sut.isEmpty());
+        assertFalse(sut.removeIf(o -> true));
+    }
+
+    @Test
+    public void parallelStreamSplitsEvenly() {
+        //given
+        for (int i = 0; i < 100_000; i++) {
+            sut.add(i);
+        }
+
+        //when
+        Spliterator<Object> spliterator = sut.spliterator();
+        Spliterator<Object> prefix = spliterator.trySplit();
+        long sum = sut.parallelStream().mapToLong(o -> (Integer) o).sum();
+
+        //then
+        assertEquals(50_000, prefix.estimateSize());
+        assertEquals(50_000, spliterator.getExactSizeIfKnown());
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SUBSIZED));
+        assertEquals(100_000L * 99_999 / 2, sum);
+    }
+
+    @Test
+    public void shrinksAfterDraining() {
+        //given
+        long empty = sut.memoryFootprint();
+        for (int i = 0; i < 100_000; i++) {
+            sut.add(i % 20_000);
+        }
+        long peak = sut.memoryFootprint();
+
+        //when
+        for (int i = 0; i < 99_990; i++) {
+            sut.pollAny();
+        }
+        long drained = sut.memoryFootprint();
+
+        //then
+        assertTrue(peak > 100_000 * 8);
+        assertTrue(drained < peak / 100, drained + " bytes after draining " + peak);
+        assertTrue(drained > empty);
+        assertEquals(10, sut.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(1, sut.count(i));
+        }
+    }
+
+    @Test
+    public void trimToSize() {
+        //given
+        OptimizedUnsortedList<Object> presized = new OptimizedUnsortedList<>(10_000, 100);
+        long before = presized.memoryFootprint();
+        for (int i = 0; i < 1000; i++) {
+            presized.add(i % 100);
+        }
+
+        //when
+        presized.trimToSize();
+
+        //then
+        assertTrue(presized.memoryFootprint() < before);
+        assertEquals(1000, presized.size());
+        assertEquals(10, presized.count(42));
+        presized.add(42);
+        assertEquals(11, presized.count(42));
+        assertEquals(1001, presized.size());
+        assertThrows(IllegalArgumentException.class, () -> new OptimizedUnsortedList<>(-1));
+    }
+
+    @Test
+    public void presizedListKeepsItsCapacity() {
+        //given
+        OptimizedUnsortedList<Object> presized = new OptimizedUnsortedList<>(100_000, 1000);
+        for (int i = 0; i < 1000; i++) {
+            presized.add(i);
+        }
+        long footprint = presized.memoryFootprint();
+
+        //when
+        for (int i = 0; i < 990; i++) {
+            presized.remove(i);
+        }
+        long drained = presized.memoryFootprint();
+        presized.clear();
+        long cleared = presized.memoryFootprint();
+        presized.trimToSize();
+
+        //then
+        // a reference and an int for each of the positions asked for
+        assertTrue(drained > 100_000 * (4 + 4), drained + " bytes after draining " + footprint);
+        assertTrue(cleared > 100_000 * (4 + 4), cleared + " bytes after clearing " + footprint);
+        assertTrue(presized.memoryFootprint() < footprint / 100);
+    }
+
+    @Test
+    public void memoryFootprintFollowsTheGrowth() {
+        //given
+        long empty = sut.memoryFootprint();
+
+        //when
+        for (int i = 0; i < 1000; i++) {
+            sut.add(0);
+        }
+        long grown = sut.memoryFootprint();
+        sut.clear();
+
+        //then
+        // a reference and an int per position at least, in a single pool of positions
+        assertTrue(grown - empty >= 1000 * (4 + 4 + 4), grown + " bytes");
+        assertEquals(empty, sut.memoryFootprint());
+    }
 }
@@ -0,0 +1,76 @@
+package org.igm.util;
+
+import static org.igm.util.SpanishWordsToNumber.parse;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import org.junit.Test;
+
+public class SpanishWordsToNumberTest {
+
+  @Test
+  public void someNumbers() {
+    assertEquals(new BigDecimal("0"), parse("cero"));
+    assertEquals(new BigDecimal("1"), parse("uno"));
+    assertEquals(new BigDecimal("21"), parse("veintiuno"));
+    assertEquals(new BigDecimal("100"), parse("cien"));
+    assertEquals(new BigDecimal("101"), parse("ciento uno"));
+    assertEquals(new BigDecimal("1000"), parse("mil"));
+    assertEquals(new BigDecimal("21000"), parse("veintiun mil"));
+    assertEquals(new BigDecimal("1000000"), parse("un millón"));
+    assertEquals(new BigDecimal("1000000000"), parse("mil millones"));
+    assertEquals(new BigDecimal("-1231.05"),
+        parse("menos mil doscientos treinta y uno con cero cinco"));
+    assertEquals(new BigDecimal("0.50"), parse("cero con cincuenta"));
+    assertEquals(new BigDecimal("2001001000000"), parse("dos billones mil un millones"));
+  }
+
+  @Test
+  public void accentsCaseAndSpaces() {
+    assertEquals(new BigDecimal("16000000"), parse("DIECISEIS MILLONES"));
+    assertEquals(new BigDecimal("16000000"), parse("  Dieciséis\tMillón "));
+    assertEquals(new BigDecimal("22.23"), parse("veintidos con VEINTITRÉS"));
+  }
+
+  @Test
+  public void inverseOfConvert() {
+    Random random = new Random(21);
+    for (int i = 0; i < 100000; i++) {
+      StringBuilder number = new StringBuilder();
+      if (random.nextBoolean()) {
+        number.append('-');
+      }
+      number.append((char) ('1' + random.nextInt(9)));
+      int digits = random.nextInt(20 - number.length());
+      for (int j = 0; j < digits; j++) {
+        number.append((char) ('0' + random.nextInt(10)));
+      }
+      BigDecimal expected = new BigDecimal(number.toString());
+      if (random.nextBoolean()) {
+        int decimals = 1 + random.nextInt(99);
+        number.append('.').append(decimals / 10).append(decimals % 10);
+        expected = new BigDecimal(number.toString());
+      }
+      assertEquals(number.toString(), expected, parse(NumberToSpanishWords.convert(
+          number.toString())));
+    }
+  }
+
+  @Test
+  public void rejectedWords() {
+    String[] rejected = {"", "  ", "uno dos", "cien uno", "treinta y", "treinta y diez",
+        "veinte y uno", "mil mil", "millones", "un millón dos billones", "menos", "menos menos uno",
+        "uno menos", "cero uno", "uno con", "uno con cero", "uno con cero treinta",
+        "uno con mil", "uno con dos con tres", "doce pesos", "once1", "un-millón"};
+    for (String words : rejected) {
+      try {
+        parse(words);
+        fail(words + " should be rejected");
+      } catch (NumberFormatException e) {
+        // expected
+      }
+    }
+  }
+}
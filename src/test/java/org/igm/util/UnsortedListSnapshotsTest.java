@@ -0,0 +1,136 @@
+package org.igm.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class UnsortedListSnapshotsTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void objectListWithVariableSizeElements() throws IOException {
+        //given
+        Path file = directory.resolve("strings.snapshot");
+        OptimizedUnsortedList<String> list = new OptimizedUnsortedList<>();
+        Random random = new Random(22);
+        for (int i = 0; i < 50_000; i++) {
+            list.add("elemento " + random.nextInt(1000) + (i % 7 == 0 ? " con eñe y 😀" : ""));
+        }
+        list.add("x".repeat(100_000));
+
+        //when
+        UnsortedListSnapshots.write(list, ElementCodec.strings(), file);
+        OptimizedUnsortedList<String> read = UnsortedListSnapshots.read(file, ElementCodec.strings());
+
+        //then
+        assertEquals(list, read);
+        assertArrayEquals(list.toArray(), read.toArray());
+        assertTrue(read.remove("x".repeat(100_000)));
+        assertFalse(Files.exists(directory.resolve("strings.snapshot.tmp")));
+    }
+
+    @Test
+    public void objectListWithFixedSizeElements() throws IOException {
+        //given
+        Path file = directory.resolve("longs.snapshot");
+        OptimizedUnsortedList<Long> list = new OptimizedUnsortedList<>();
+        for (long i = 0; i < 10_000; i++) {
+            list.add(i % 123 * 1_000_000_007L);
+        }
+
+        //when
+        UnsortedListSnapshots.write(list, ElementCodec.longs(), file);
+        OptimizedUnsortedList<Long> read = UnsortedListSnapshots.read(file, ElementCodec.longs());
+
+        //then
+        assertEquals(list, read);
+        assertThrows(IOException.class, () -> UnsortedListSnapshots.read(file, ElementCodec.integers()));
+        assertThrows(IOException.class, () -> UnsortedListSnapshots.readLongs(file));
+    }
+
+    @Test
+    public void primitiveListsKeepTheirIndex() throws IOException {
+        //given
+        Path file = directory.resolve("ints.snapshot");
+        IntOptimizedUnsortedList list = new IntOptimizedUnsortedList();
+        Random random = new Random(22);
+        for (int i = 0; i < 100_000; i++) {
+            list.add(random.nextInt(5000));
+        }
+        for (int i = 0; i < 1000; i++) {
+            list.remove(i);
+        }
+
+        //when
+        UnsortedListSnapshots.write(list, file);
+        IntOptimizedUnsortedList read = UnsortedListSnapshots.readInts(file);
+
+        //then
+        assertArrayEquals(list.toArray(), read.toArray());
+        assertEquals(list.distinct(), read.distinct());
+        for (int value = 0; value < 5000; value++) {
+            assertEquals(list.contains(value), read.contains(value));
+            while (list.remove(value)) {
+                assertTrue(read.remove(value));
+            }
+            assertFalse(read.contains(value));
+        }
+        assertTrue(read.isEmpty());
+    }
+
+    @Test
+    public void longAndCharLists() throws IOException {
+        //given
+        LongOptimizedUnsortedList longs = new LongOptimizedUnsortedList();
+        CharOptimizedUnsortedList chars = new CharOptimizedUnsortedList();
+        for (char c : "snapshot de una lista".toCharArray()) {
+            longs.add(c * 0x1_0000_0000L);
+            chars.add(c);
+        }
+
+        //when
+        UnsortedListSnapshots.write(longs, directory.resolve("longs"));
+        UnsortedListSnapshots.write(chars, directory.resolve("chars"));
+        LongOptimizedUnsortedList readLongs = UnsortedListSnapshots.readLongs(directory.resolve("longs"));
+        CharOptimizedUnsortedList readChars = UnsortedListSnapshots.readChars(directory.resolve("chars"));
+
+        //then
+        assertArrayEquals(longs.toArray(), readLongs.toArray());
+        assertArrayEquals(chars.toArray(), readChars.toArray());
+        assertTrue(readLongs.remove('s' * 0x1_0000_0000L));
+        assertTrue(readChars.contains('l'));
+    }
+
+    @Test
+    public void truncatedSnapshots() throws IOException {
+        //given
+        Path file = directory.resolve("truncated");
+        IntOptimizedUnsortedList list = new IntOptimizedUnsortedList();
+        for (int i = 0; i < 1000; i++) {
+            list.add(i);
+        }
+        UnsortedListSnapshots.write(list, file);
+
+        //when
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+
+        //then
+        assertThrows(IOException.class, () -> UnsortedListSnapshots.readInts(file));
+        Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9});
+        assertThrows(IOException.class, () -> UnsortedListSnapshots.readInts(file));
+    }
+}